@@ -60,4 +60,54 @@ export const deleteContract = async (id) => {
     return await api.delete(`/contracts/${id}`);
 };
 
+// Streams a chat answer over Server-Sent Events (POST, so EventSource can't be used).
+// Calls onToken for every token; resolves with the conversationId once the answer is complete.
+export const streamChat = async (body, onToken) => {
+    const token = localStorage.getItem('jwtToken');
+    const response = await fetch('/api/contracts/chat/stream', {
+        method: 'POST',
+        headers: {
+            'Content-Type': 'application/json',
+            'Accept': 'text/event-stream',
+            ...(token ? { 'Authorization': `Bearer ${token}` } : {})
+        },
+        body: JSON.stringify(body)
+    });
+    if (!response.ok || !response.body) {
+        throw new Error(`Chat stream failed (${response.status})`);
+    }
+
+    const reader = response.body.getReader();
+    const decoder = new TextDecoder();
+    let buffer = '';
+    let conversationId = body.conversationId;
+
+    while (true) {
+        const { value, done } = await reader.read();
+        if (done) break;
+        buffer += decoder.decode(value, { stream: true });
+
+        // Events are separated by a blank line
+        let boundary;
+        while ((boundary = buffer.indexOf('\n\n')) >= 0) {
+            const rawEvent = buffer.slice(0, boundary);
+            buffer = buffer.slice(boundary + 2);
+
+            let event = 'message';
+            let data = '';
+            for (const line of rawEvent.split('\n')) {
+                if (line.startsWith('event:')) event = line.slice(6).trim();
+                else if (line.startsWith('data:')) data += line.slice(5);
+            }
+            if (!data) continue;
+            const payload = JSON.parse(data);
+
+            if (event === 'meta' || event === 'done') conversationId = payload.conversationId;
+            else if (event === 'token') onToken(payload.token);
+            else if (event === 'error') throw new Error(payload.message || 'Chat stream failed');
+        }
+    }
+    return conversationId;
+};
+
 export default api;
\ No newline at end of file
@@ -1,6 +1,6 @@
 import { useState, useRef, useEffect } from 'react';
 import { useParams, useNavigate } from 'react-router-dom';
-import api from '../api/axiosConfig';
+import { streamChat } from '../api/axiosConfig';
 import { Container, Button, Card, Form, Badge, Spinner } from 'react-bootstrap';
 import { FaArrowLeft, FaRobot, FaUser, FaPaperPlane, FaClock, FaComments, FaFileContract } from 'react-icons/fa';
 
@@ -49,18 +49,22 @@ const Chat = () => {
         setLoading(true);
 
         try {
-            const response = await api.post('/contracts/chat', {
+            // Show the answer as it is generated instead of waiting for the whole reply
+            let answer = '';
+            const newConversationId = await streamChat({
                 question: input,
                 contractId: isGeneral ? null : contractId,
                 conversationId: conversationId
+            }, (token) => {
+                answer += token;
+                setLoading(false);
+                setMessages([...newMessages, { sender: 'ai', text: answer }]);
             });
 
-            if (response.data.conversationId && response.data.conversationId !== conversationId) {
-                setConversationId(response.data.conversationId);
-                localStorage.setItem(storageKey, response.data.conversationId);
+            if (newConversationId && newConversationId !== conversationId) {
+                setConversationId(newConversationId);
+                localStorage.setItem(storageKey, newConversationId);
             }
-
-            setMessages([...newMessages, { sender: 'ai', text: response.data.response }]);
         } catch (error) {
             setMessages([...newMessages, { sender: 'ai', text: "Error: Could not connect to the AI." }]);
         } finally {
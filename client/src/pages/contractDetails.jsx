@@ -26,7 +26,10 @@ const ContractDetails = () => {
             try {
                 const response = await api.get(`/contracts/${id}`);
                 setContract(response.data);
-                if (response.data.analysisJson) {
+                // Structured analysis when the server has it; older contracts only carry the JSON string
+                if (response.data.analysis) {
+                    setAnalysis(response.data.analysis);
+                } else if (response.data.analysisJson) {
                     try {
                         setAnalysis(JSON.parse(response.data.analysisJson));
                     } catch (e) {
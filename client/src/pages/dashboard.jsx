@@ -42,6 +42,7 @@ const hoverStyle = {
 const Dashboard = () => {
     // --- STATE MANAGEMENT ---
     const [contracts, setContracts] = useState([]);
+    const [nextCursor, setNextCursor] = useState(null);
     const [uploading, setUploading] = useState(false);
     const [searchTerm, setSearchTerm] = useState('');
 
@@ -108,10 +109,12 @@ const Dashboard = () => {
         }
     };
 
-    const fetchContracts = async () => {
+    // Pass the cursor to append the next page; without it the list starts over
+    const fetchContracts = async (cursor = null) => {
         try {
-            const response = await api.get('/contracts');
-            setContracts(response.data);
+            const response = await api.get('/contracts', { params: cursor ? { cursor } : {} });
+            setContracts(prev => cursor ? [...prev, ...response.data.items] : response.data.items);
+            setNextCursor(response.data.nextCursor);
         } catch (error) {
             console.error(error);
         }
@@ -399,13 +402,7 @@ const Dashboard = () => {
                 {/* --- 5. CONTRACTS GRID --- */}
                 <Row xs={1} md={2} lg={3} xl={4} className="g-3 g-md-4">
                     {filteredContracts.map((contract) => {
-                        let riskLevel = 'low';
-                        try {
-                            if (contract.analysisJson) {
-                                const analysis = JSON.parse(contract.analysisJson);
-                                if (analysis.risk_level) riskLevel = analysis.risk_level.toLowerCase();
-                            }
-                        } catch (e) { }
+                        const riskLevel = contract.riskLevel ? contract.riskLevel.toLowerCase() : 'low';
                         const riskBadge = getRiskBadge(riskLevel);
 
                         return (
@@ -464,6 +461,14 @@ const Dashboard = () => {
                     })}
                 </Row>
 
+                {nextCursor && (
+                    <div className="text-center mt-4">
+                        <Button variant="outline-primary" className="rounded-pill px-4 fw-semibold" onClick={() => fetchContracts(nextCursor)}>
+                            Load more
+                        </Button>
+                    </div>
+                )}
+
             </Container>
 
             {/* DELETE MODAL */}
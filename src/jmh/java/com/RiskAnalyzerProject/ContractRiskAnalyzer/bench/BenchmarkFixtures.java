@@ -0,0 +1,179 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.bench;
+
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.model.Contract;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.model.ContractAnalysis;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixture PDFs and contracts for the benchmarks. PDFs are generated into a temp directory on first
+ * use instead of being checked in, so every run (and every commit being compared) reads the same bytes.
+ */
+public final class BenchmarkFixtures {
+
+    // text-small: 3 text pages. text-large: 120 text pages. scanned: 5 image-only pages.
+    // mixed: 10 pages, every third one a scan (e.g. a signed page in a typed contract)
+    public static final String TEXT_SMALL = "text-small";
+    public static final String TEXT_LARGE = "text-large";
+    public static final String SCANNED = "scanned";
+    public static final String MIXED = "mixed";
+
+    private static final String[] CLAUSES = {
+            "The Supplier shall indemnify the Customer against all losses arising from any breach of this Agreement.",
+            "Either party may terminate this Agreement on thirty days written notice to the other party.",
+            "The Customer shall pay all invoices within sixty days of receipt without set-off or deduction.",
+            "Neither party shall be liable for any indirect or consequential loss, including loss of profit.",
+            "This Agreement is governed by the laws of England and the courts of London have exclusive jurisdiction.",
+            "The Supplier grants the Customer a non-exclusive licence to use the deliverables for internal purposes.",
+            "Confidential information shall not be disclosed to any third party without prior written consent.",
+            "The Supplier's total liability under this Agreement shall not exceed the fees paid in the preceding year."
+    };
+
+    private static Path dir;
+
+    private BenchmarkFixtures() {
+    }
+
+    public static synchronized Path pdf(String name) throws IOException {
+        if (dir == null) {
+            dir = Files.createTempDirectory("contract-bench-");
+        }
+        Path file = dir.resolve(name + ".pdf");
+        if (!Files.exists(file)) {
+            switch (name) {
+                case TEXT_SMALL -> write(file, 3, page -> false);
+                case TEXT_LARGE -> write(file, 120, page -> false);
+                case SCANNED -> write(file, 5, page -> true);
+                case MIXED -> write(file, 10, page -> page % 3 == 2);
+                default -> throw new IllegalArgumentException("Unknown fixture: " + name);
+            }
+        }
+        return file;
+    }
+
+    public static boolean needsOcr(String name) {
+        return SCANNED.equals(name) || MIXED.equals(name);
+    }
+
+    // An analysed contract the size of a typical model answer (a dozen risks, a few lists)
+    public static Contract contract(int risks) {
+        ContractAnalysis analysis = new ContractAnalysis();
+        analysis.setSummary("Master services agreement between a supplier and a customer. " + CLAUSES[0] + " " + CLAUSES[7]);
+        analysis.setRiskScore(72);
+        analysis.setRiskLevel("High");
+        for (int i = 0; i < risks; i++) {
+            ContractAnalysis.KeyRisk risk = new ContractAnalysis.KeyRisk();
+            risk.setClause(CLAUSES[i % CLAUSES.length]);
+            risk.setSeverity(i % 3 == 0 ? "High" : i % 3 == 1 ? "Medium" : "Low");
+            risk.setRiskExplanation("Clause " + (i + 1) + " shifts risk onto the customer. " + CLAUSES[(i + 3) % CLAUSES.length]);
+            analysis.getKeyRisks().add(risk);
+        }
+        analysis.getMissingClauses().addAll(List.of("Force majeure", "Data protection", "Step-in rights"));
+        analysis.getRecommendations().addAll(List.of("Cap the indemnity", "Shorten payment terms", "Add a force majeure clause"));
+
+        Contract contract = new Contract();
+        contract.setId("65f0c0ffee0000000000bench");
+        contract.setOwnerUsername("bench");
+        contract.setFilename("master-services-agreement.pdf");
+        contract.setUploadedAt(Instant.parse("2024-03-01T10:00:00Z"));
+        contract.setUploadDate("2024-03-01T10:00:00");
+        contract.setAnalysis(analysis);
+        contract.setAnalysisJson(analysis.toJson());
+        contract.setRiskLevel(analysis.getRiskLevel());
+        contract.setRiskScore(analysis.getRiskScore());
+        return contract;
+    }
+
+    private interface PagePredicate {
+        boolean scanned(int page);
+    }
+
+    private static void write(Path file, int pages, PagePredicate scanned) throws IOException {
+        Path tmp = Files.createTempFile(file.getParent(), "fixture-", ".tmp");
+        try (PDDocument document = new PDDocument()) {
+            for (int page = 0; page < pages; page++) {
+                List<String> lines = lines(page);
+                PDPage pdPage = new PDPage(PDRectangle.A4);
+                document.addPage(pdPage);
+                if (scanned.scanned(page)) {
+                    drawScan(document, pdPage, lines);
+                } else {
+                    drawText(document, pdPage, lines);
+                }
+            }
+            document.save(tmp.toFile());
+        }
+        Files.move(tmp, file);
+    }
+
+    private static List<String> lines(int page) {
+        List<String> lines = new ArrayList<>();
+        lines.add("Section " + (page + 1));
+        for (int i = 0; i < 12; i++) {
+            String clause = CLAUSES[(page + i) % CLAUSES.length];
+            int split = clause.indexOf(' ', clause.length() / 2);
+            lines.add((page + 1) + "." + (i + 1) + " " + clause.substring(0, split));
+            lines.add(clause.substring(split + 1));
+        }
+        return lines;
+    }
+
+    private static void drawText(PDDocument document, PDPage page, List<String> lines) throws IOException {
+        try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+            content.beginText();
+            content.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 10);
+            content.setLeading(14);
+            content.newLineAtOffset(50, 790);
+            for (String line : lines) {
+                content.showText(line);
+                content.newLine();
+            }
+            content.endText();
+        }
+    }
+
+    // Text drawn into a 150 dpi greyscale bitmap and placed as the only content, like a scanner would
+    private static void drawScan(PDDocument document, PDPage page, List<String> lines) throws IOException {
+        PDRectangle box = page.getMediaBox();
+        int width = Math.round(box.getWidth() / 72 * 150);
+        int height = Math.round(box.getHeight() / 72 * 150);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.setColor(Color.BLACK);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setFont(new Font(Font.SERIF, Font.PLAIN, 21));
+            int y = 110;
+            for (String line : lines) {
+                g.drawString(line, 100, y);
+                y += 30;
+            }
+        } finally {
+            g.dispose();
+        }
+        PDImageXObject xObject = LosslessFactory.createFromImage(document, image);
+        try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+            content.drawImage(xObject, 0, 0, box.getWidth(), box.getHeight());
+        }
+    }
+}
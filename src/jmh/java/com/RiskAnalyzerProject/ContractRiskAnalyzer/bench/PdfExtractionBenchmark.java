@@ -0,0 +1,84 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.bench;
+
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.service.OcrEnginePool;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.service.PdfService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Text extraction end to end (open, text layer, OCR of image-only pages). The scanned and mixed
+ * fixtures need tessdata, from ./tessdata like the app itself or
+ * -Djmh.args="-jvmArgsAppend -Dapp.ocr.tessdata-path=/path/to/tessdata".
+ * Ingestion mode (file, mmap, memory) is a parameter too since it changes how pages are read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PdfExtractionBenchmark {
+
+    @Param({BenchmarkFixtures.TEXT_SMALL, BenchmarkFixtures.TEXT_LARGE, BenchmarkFixtures.MIXED, BenchmarkFixtures.SCANNED})
+    public String fixture;
+
+    @Param({"file", "mmap", "memory"})
+    public String ingestionMode;
+
+    private OcrEnginePool ocrEnginePool;
+    private PdfService pdfService;
+    private Path pdf;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        pdf = BenchmarkFixtures.pdf(fixture);
+
+        ocrEnginePool = new OcrEnginePool();
+        ReflectionTestUtils.setField(ocrEnginePool, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(ocrEnginePool, "pageTimeoutSeconds", 60L);
+        ReflectionTestUtils.setField(ocrEnginePool, "tessDataPath", System.getProperty("app.ocr.tessdata-path", ""));
+        ReflectionTestUtils.setField(ocrEnginePool, "language", "eng");
+        ocrEnginePool.init();
+        if (BenchmarkFixtures.needsOcr(fixture) && !ocrEnginePool.isAvailable()) {
+            ocrEnginePool.shutdown();
+            throw new IllegalStateException("No tessdata found for the " + fixture + " fixture; see the class comment");
+        }
+
+        pdfService = new PdfService();
+        ReflectionTestUtils.setField(pdfService, "ocrEnginePool", ocrEnginePool);
+        ReflectionTestUtils.setField(pdfService, "observationRegistry", ObservationRegistry.NOOP);
+        ReflectionTestUtils.setField(pdfService, "ocrDpi", 150);
+        ReflectionTestUtils.setField(pdfService, "minTextCharsPerPage", 40);
+        ReflectionTestUtils.setField(pdfService, "ingestionMode", ingestionMode);
+        ReflectionTestUtils.setField(pdfService, "maxMainMemoryBytes", 16L * 1024 * 1024);
+        ReflectionTestUtils.setField(pdfService, "spoolDir", System.getProperty("java.io.tmpdir"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ocrEnginePool.shutdown();
+    }
+
+    @Benchmark
+    public String extract() throws IOException {
+        return pdfService.Text(pdf);
+    }
+}
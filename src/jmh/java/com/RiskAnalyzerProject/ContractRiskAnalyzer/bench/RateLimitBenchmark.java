@@ -0,0 +1,79 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.bench;
+
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.config.RateLimitProperties;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.repository.UserRepository;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.service.RateLimitingService;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.service.UserRoleService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * tryConsume from 8 threads at once. users=1 puts every thread on the same bucket (worst case for
+ * the compare-and-swap loop in memory mode); users=1000 spreads them out like real traffic.
+ * The plan is big enough that buckets never run dry, so this measures the bookkeeping, not rejections.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class RateLimitBenchmark {
+
+    @Param({"local", "memory"})
+    public String mode;
+
+    @Param({"1", "1000"})
+    public int users;
+
+    private RateLimitingService rateLimitingService;
+    private String[] usernames;
+
+    @Setup
+    public void setUp() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setMode(mode);
+        properties.setDefaultPlan("BENCH");
+        properties.getPlans().put("BENCH", new RateLimitProperties.Plan(
+                1_000_000_000, 1_000_000_000, Duration.ofSeconds(1), true));
+
+        // No role in the security context and no such user: every bucket gets the default plan
+        UserRoleService userRoleService = new UserRoleService();
+        ReflectionTestUtils.setField(userRoleService, "userRepository", Mockito.mock(UserRepository.class));
+
+        rateLimitingService = new RateLimitingService();
+        ReflectionTestUtils.setField(rateLimitingService, "userRoleService", userRoleService);
+        ReflectionTestUtils.setField(rateLimitingService, "properties", properties);
+        ReflectionTestUtils.setField(rateLimitingService, "meterRegistry", new SimpleMeterRegistry());
+        rateLimitingService.init();
+
+        usernames = new String[users];
+        for (int i = 0; i < users; i++) {
+            usernames[i] = "user-" + i;
+            rateLimitingService.tryConsume(usernames[i]);
+        }
+    }
+
+    @Benchmark
+    public boolean tryConsume() {
+        return rateLimitingService.tryConsume(usernames[ThreadLocalRandom.current().nextInt(usernames.length)]);
+    }
+}
@@ -0,0 +1,56 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.bench;
+
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.model.Contract;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.service.PdfReportService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+// Rendering only; the bytes go nowhere so disk and network don't show up in the numbers
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportBenchmark {
+
+    @Param({"5", "40"})
+    public int risks;
+
+    private final PdfReportService pdfReportService = new PdfReportService();
+    private Contract contract;
+
+    @Setup
+    public void setUp() {
+        contract = BenchmarkFixtures.contract(risks);
+    }
+
+    @Benchmark
+    public void writeContractReport() throws IOException {
+        pdfReportService.writeContractReport(contract, OutputStream.nullOutputStream());
+    }
+
+    // Legacy contracts only have the JSON string, which is parsed on every render
+    @Benchmark
+    public void writeLegacyContractReport() throws IOException {
+        Contract legacy = new Contract();
+        legacy.setId(contract.getId());
+        legacy.setFilename(contract.getFilename());
+        legacy.setUploadDate(contract.getUploadDate());
+        legacy.setAnalysisJson(contract.getAnalysisJson());
+        pdfReportService.writeContractReport(legacy, OutputStream.nullOutputStream());
+    }
+}
@@ -0,0 +1,76 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.bench;
+
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.service.TokenBlacklistService;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The revocation check the filter runs after parsing a token. Almost every request carries a token
+ * that isn't revoked, which the bloom filter should answer without touching the map.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class TokenBlacklistBenchmark {
+
+    // Revocations already held when the benchmark starts
+    @Param({"1000", "50000"})
+    public int revoked;
+
+    private TokenBlacklistService tokenBlacklistService;
+    private String liveToken;
+    private Claims liveClaims;
+    private String revokedToken;
+    private Claims revokedClaims;
+
+    @Setup
+    public void setUp() {
+        JwtUtil jwtUtil = JwtBenchmark.jwtUtil();
+        tokenBlacklistService = new TokenBlacklistService();
+        // Saves go to a mock; only the in-memory side is measured
+        ReflectionTestUtils.setField(tokenBlacklistService, "mongoTemplate", Mockito.mock(MongoTemplate.class));
+        ReflectionTestUtils.setField(tokenBlacklistService, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(tokenBlacklistService, "bloomCapacity", 100_000);
+        ReflectionTestUtils.setField(tokenBlacklistService, "bloomFalsePositiveRate", 0.01);
+        tokenBlacklistService.init();
+
+        for (int i = 0; i < revoked; i++) {
+            revokedToken = jwtUtil.generateToken("user-" + i, "USER");
+            tokenBlacklistService.blacklistToken(revokedToken);
+        }
+        revokedClaims = jwtUtil.parseClaims(revokedToken);
+        liveToken = jwtUtil.generateToken("bench-user", "USER");
+        liveClaims = jwtUtil.parseClaims(liveToken);
+    }
+
+    @Benchmark
+    public boolean liveToken() {
+        return tokenBlacklistService.isRevoked(liveClaims, liveToken);
+    }
+
+    @Benchmark
+    public boolean revokedToken() {
+        return tokenBlacklistService.isRevoked(revokedClaims, revokedToken);
+    }
+}
@@ -0,0 +1,62 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.config;
+
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.service.TwoTierCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Replaces the default unbounded in-memory cache: analyses are kept in a bounded Caffeine L1
+ * and persisted to Mongo (analysis_cache) so they survive restarts.
+ */
+@Configuration
+public class CacheConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheConfig.class);
+
+    public static final String CONTRACT_ANALYSIS_CACHE = "contractAnalysis";
+
+    @Value("${app.cache.analysis.l1-max-bytes:67108864}")
+    private long l1MaxBytes;
+
+    @Value("${app.cache.analysis.ttl-days:30}")
+    private long ttlDays;
+
+    @Value("${app.cache.analysis.warmup-entries:200}")
+    private int warmupEntries;
+
+    @Bean
+    public TwoTierCache contractAnalysisCache(MongoTemplate mongoTemplate) {
+        return new TwoTierCache(CONTRACT_ANALYSIS_CACHE, mongoTemplate, l1MaxBytes, Duration.ofDays(ttlDays));
+    }
+
+    @Bean
+    public CacheManager cacheManager(TwoTierCache contractAnalysisCache) {
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(List.of(contractAnalysisCache));
+        return cacheManager;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp(ApplicationReadyEvent event) {
+        if (warmupEntries <= 0) {
+            return;
+        }
+        try {
+            int loaded = event.getApplicationContext().getBean(TwoTierCache.class).warmUp(warmupEntries);
+            logger.info("Warmed {} cache with {} entries", CONTRACT_ANALYSIS_CACHE, loaded);
+        } catch (RuntimeException e) {
+            logger.warn("Cache warm-up skipped: {}", e.getMessage());
+        }
+    }
+}
@@ -3,10 +3,15 @@ package com.RiskAnalyzerProject.ContractRiskAnalyzer.config;
 import com.RiskAnalyzerProject.ContractRiskAnalyzer.service.TokenBlacklistService;
 import com.RiskAnalyzerProject.ContractRiskAnalyzer.service.UserDetailsServiceImpl;
 import com.RiskAnalyzerProject.ContractRiskAnalyzer.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -20,6 +25,8 @@ import java.io.IOException;
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
+
     @Autowired
     private JwtUtil jwtUtil;
 
@@ -29,54 +36,64 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private TokenBlacklistService  tokenBlacklistService;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
+        // Timed on its own, without the rest of the chain
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = authenticate(request, response);
+        sample.stop(meterRegistry.timer("security.jwt.filter", "outcome", outcome));
+        if (!"revoked".equals(outcome)) {
+            filterChain.doFilter(request, response);
+        }
+    }
 
+    // Returns what happened: none, expired, invalid, revoked (response already written) or authenticated
+    private String authenticate(HttpServletRequest request, HttpServletResponse response) throws IOException {
         final String authHeader = request.getHeader("Authorization");
-        String username = null;
-        String jwt = null;
 
         // 1. Check if the header contains a Bearer Token
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            jwt = authHeader.substring(7); // Remove "Bearer " prefix
-            if (tokenBlacklistService.isBlacklisted(jwt)) {
-                // Token is dead. Reject request immediately.
-                response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-                response.getWriter().write("Token is invalid (Logged out)");
-                return;
-            }
-            try {
-                // Wrap this in try-catch to prevent crashes on expired tokens
-                username = jwtUtil.extractUsername(jwt);
-            } catch (io.jsonwebtoken.ExpiredJwtException e) {
-                System.out.println("JWT Token has expired: " + e.getMessage());
-                // Do nothing. The user remains unauthenticated.
-                // If the endpoint requires login, Spring Security will return 401 later.
-            } catch (Exception e) {
-                System.out.println("Error parsing JWT: " + e.getMessage());
-            }
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return "none";
+        }
+        String jwt = authHeader.substring(7); // Remove "Bearer " prefix
+        Claims claims;
+        try {
+            // One parse verifies the signature and expiry and gives us every claim
+            claims = jwtUtil.parseClaims(jwt);
+        } catch (io.jsonwebtoken.ExpiredJwtException e) {
+            logger.debug("JWT Token has expired: {}", e.getMessage());
+            // Do nothing. The user remains unauthenticated.
+            // If the endpoint requires login, Spring Security will return 401 later.
+            return "expired";
+        } catch (Exception e) {
+            logger.debug("Error parsing JWT: {}", e.getMessage());
+            return "invalid";
+        }
+
+        if (tokenBlacklistService.isRevoked(claims, jwt)) {
+            // Token is dead. Reject request immediately.
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            response.getWriter().write("Token is invalid (Logged out)");
+            return "revoked";
         }
 
-        // 2. Validate Token and Load User (Only if we successfully extracted a username)
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+        // 2. Build the principal from the verified claims (no user lookup when the token carries the role)
+        if (claims.getSubject() != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            UserDetails userDetails = this.userDetailsService.loadFromToken(
+                    claims.getSubject(), claims.get(JwtUtil.ROLE_CLAIM, String.class));
 
-            // Double check validity (including expiration again, just to be safe)
-            try {
-                if (jwtUtil.validateToken(jwt, userDetails.getUsername())) {
-                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            userDetails, null, userDetails.getAuthorities());
+            UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                    userDetails, null, userDetails.getAuthorities());
 
-                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-                    // 3. Authenticate the user in Spring Security Context
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
-                }
-            } catch (Exception e) {
-                System.out.println("Token validation failed: " + e.getMessage());
-            }
+            // 3. Authenticate the user in Spring Security Context
+            SecurityContextHolder.getContext().setAuthentication(authToken);
         }
-        filterChain.doFilter(request, response);
+        return "authenticated";
     }
-}
\ No newline at end of file
+}
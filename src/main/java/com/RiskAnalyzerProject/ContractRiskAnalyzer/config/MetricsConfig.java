@@ -0,0 +1,13 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+
+/**
+ * Metrics and tracing defaults (exposed endpoints, histograms, sampling). Kept in metrics.properties
+ * so they apply in every environment without each application.properties having to repeat them.
+ */
+@Configuration
+@PropertySource("classpath:metrics.properties")
+public class MetricsConfig {
+}
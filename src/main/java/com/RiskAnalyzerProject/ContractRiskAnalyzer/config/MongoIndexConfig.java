@@ -0,0 +1,151 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.config;
+
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.model.AnalysisCacheEntry;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.model.AnalysisJob;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.model.Contract;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.model.ContractText;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.model.OutboxEmail;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.model.RevokedToken;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.model.User;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.service.MongoBucketStateStore;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+
+import java.time.Duration;
+
+/**
+ * Creates the indexes our queries rely on. Spring Data's auto-index-creation is off by default,
+ * so annotations alone would never reach the database.
+ */
+@Configuration
+public class MongoIndexConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(MongoIndexConfig.class);
+
+    private static final String SEARCH_INDEX = "contract_text_search";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexes() {
+        // Upload dedup lookups
+        ensure(Contract.class, new Index()
+                .on("fileSha256", Sort.Direction.ASC)
+                .on("jurisdiction", Sort.Direction.ASC)
+                .on("contractType", Sort.Direction.ASC));
+        ensure(Contract.class, new Index()
+                .on("textSha256", Sort.Direction.ASC)
+                .on("jurisdiction", Sort.Direction.ASC)
+                .on("contractType", Sort.Direction.ASC));
+
+        // Contract list: keyset pages per owner, and across all owners (admin) with optional filters
+        ensure(Contract.class, new Index()
+                .on("ownerUsername", Sort.Direction.ASC)
+                .on("uploadedAt", Sort.Direction.DESC)
+                .on("_id", Sort.Direction.DESC));
+        ensure(Contract.class, new Index()
+                .on("uploadedAt", Sort.Direction.DESC)
+                .on("_id", Sort.Direction.DESC));
+        ensure(Contract.class, new Index()
+                .on("riskLevel", Sort.Direction.ASC)
+                .on("uploadedAt", Sort.Direction.DESC)
+                .on("_id", Sort.Direction.DESC));
+        ensure(Contract.class, new Index()
+                .on("jurisdiction", Sort.Direction.ASC)
+                .on("uploadedAt", Sort.Direction.DESC)
+                .on("_id", Sort.Direction.DESC));
+
+        // Portfolio search, one owner at a time; filename and analysis matches rank above a passing mention in the body.
+        // Only one text index is allowed per collection, so the old owner-less one has to go first
+        dropOtherTextIndexes(ContractText.class, SEARCH_INDEX);
+        ensure(ContractText.class, new IndexDefinition() {
+            @Override
+            public Document getIndexKeys() {
+                return new Document("ownerUsername", 1)
+                        .append("filename", "text")
+                        .append("analysisText", "text")
+                        .append("text", "text");
+            }
+
+            @Override
+            public Document getIndexOptions() {
+                return new Document("name", SEARCH_INDEX)
+                        .append("weights", new Document("filename", 5).append("analysisText", 3).append("text", 1));
+            }
+        });
+        ensure(ContractText.class, new Index().on("ownerUsername", Sort.Direction.ASC));
+
+        // Login and registration lookups; unique creation fails (and is logged) if duplicates already exist
+        ensure(User.class, new Index().on("username", Sort.Direction.ASC).unique());
+        ensure(User.class, new Index().on("email", Sort.Direction.ASC).unique().sparse());
+
+        // Job documents are only kept around for a week
+        ensure(AnalysisJob.class, new Index().on("createdAt", Sort.Direction.ASC).expire(Duration.ofDays(7)));
+        // Each node's heartbeat touches only its own unfinished jobs
+        ensure(AnalysisJob.class, new Index().on("nodeId", Sort.Direction.ASC).on("status", Sort.Direction.ASC));
+
+        // Cached analyses carry their own expiry; the second index serves the startup warm-up
+        ensure(AnalysisCacheEntry.class, new Index().on("expiresAt", Sort.Direction.ASC).expire(Duration.ZERO));
+        ensure(AnalysisCacheEntry.class, new Index()
+                .on("cacheName", Sort.Direction.ASC)
+                .on("lastAccessedAt", Sort.Direction.DESC));
+
+        // Revoked tokens are only needed until the token would have expired; revokedAt serves the cross-node sync
+        ensure(RevokedToken.class, new Index().on("expiresAt", Sort.Direction.ASC).expire(Duration.ZERO));
+        ensure(RevokedToken.class, new Index().on("revokedAt", Sort.Direction.ASC));
+
+        // Outbox: the dispatcher's claim query, and sent mail is kept for a week
+        ensure(OutboxEmail.class, new Index()
+                .on("status", Sort.Direction.ASC)
+                .on("nextAttemptAt", Sort.Direction.ASC));
+        ensure(OutboxEmail.class, new Index().on("sentAt", Sort.Direction.ASC).expire(Duration.ofDays(7)));
+
+        // Shared rate-limit buckets (mongo mode) expire once they'd have refilled anyway
+        ensure(MongoBucketStateStore.COLLECTION, new Index().on("expiresAt", Sort.Direction.ASC).expire(Duration.ZERO));
+    }
+
+    private void dropOtherTextIndexes(Class<?> entity, String keep) {
+        IndexOperations indexOps = mongoTemplate.indexOps(entity);
+        try {
+            for (IndexInfo info : indexOps.getIndexInfo()) {
+                if (!keep.equals(info.getName()) && info.getIndexFields().stream().anyMatch(IndexField::isText)) {
+                    indexOps.dropIndex(info.getName());
+                    logger.info("Dropped text index {} on {}", info.getName(), mongoTemplate.getCollectionName(entity));
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not replace text index on {}: {}", mongoTemplate.getCollectionName(entity), e.getMessage());
+        }
+    }
+
+    private void ensure(Class<?> entity, IndexDefinition index) {
+        ensure(mongoTemplate.indexOps(entity), mongoTemplate.getCollectionName(entity), index);
+    }
+
+    // For collections written as plain documents, without a mapped entity
+    private void ensure(String collection, IndexDefinition index) {
+        ensure(mongoTemplate.indexOps(collection), collection, index);
+    }
+
+    private void ensure(IndexOperations indexOps, String collection, IndexDefinition index) {
+        try {
+            indexOps.createIndex(index);
+        } catch (RuntimeException e) {
+            // Don't keep the app from starting over an index; queries still work, just slower
+            logger.warn("Could not create index {} on {}: {}", index.getIndexKeys(), collection, e.getMessage());
+        }
+    }
+}
@@ -56,7 +56,7 @@ public class OAuth2LoginSuccessHandler extends SimpleUrlAuthenticationSuccessHan
                 String targetUrl = FRONTEND_URL + "/login?error=user_exists";
                 getRedirectStrategy().sendRedirect(request, response, targetUrl);
             } else {
-                String token = jwtUtil.generateToken(existingUser.get().getUsername());
+                String token = jwtUtil.generateToken(existingUser.get().getUsername(), existingUser.get().getRole());
                 // Redirect to /login on the SAME domain
                 String targetUrl = FRONTEND_URL + "/login?token=" + token;
                 getRedirectStrategy().sendRedirect(request, response, targetUrl);
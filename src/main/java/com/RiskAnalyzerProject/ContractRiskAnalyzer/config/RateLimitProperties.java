@@ -0,0 +1,53 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Upload rate limits (app.rate-limit.*). Plans are keyed by user role, e.g.
+ * app.rate-limit.plans.USER.capacity=2, ...refill-tokens=2, ...refill-period=1h.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.rate-limit")
+public class RateLimitProperties {
+
+    // local: per-node buckets (each replica has its own quota). mongo: one bucket per user across
+    // all nodes. memory: the shared-bucket code path over an in-process store, for running without Mongo.
+    private String mode = "local";
+
+    // Buckets (or, in mongo mode, bucket proxies) kept per node; idle ones are dropped
+    private long localCacheMaxSize = 10_000;
+    private Duration localIdleTimeout = Duration.ofHours(2);
+
+    // Used for roles without a plan of their own
+    private String defaultPlan = "USER";
+
+    private Map<String, Plan> plans = new HashMap<>(Map.of(
+            "USER", new Plan(2, 2, Duration.ofHours(1), false),
+            "ADMIN", new Plan(10_000, 10_000, Duration.ofMinutes(1), true)));
+
+    @Data
+    public static class Plan {
+        private long capacity;
+        private long refillTokens;
+        private Duration refillPeriod;
+        // greedy refills gradually over the period; otherwise all tokens come back at once when it ends
+        private boolean greedy;
+
+        public Plan() {
+        }
+
+        public Plan(long capacity, long refillTokens, Duration refillPeriod, boolean greedy) {
+            this.capacity = capacity;
+            this.refillTokens = refillTokens;
+            this.refillPeriod = refillPeriod;
+            this.greedy = greedy;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.RiskAnalyzerProject.ContractRiskAnalyzer.config;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -26,6 +27,9 @@ public class SecurityConfiguration {
     @Autowired
     private OAuth2LoginSuccessHandler oAuth2LoginSuccessHandler;
 
+    @Value("${management.server.port:-1}")
+    private int managementPort;
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
@@ -37,7 +41,14 @@ public class SecurityConfiguration {
                         // 2. Allow Public Backend Endpoints
                         .requestMatchers("/api/auth/**", "/api/payment/verify-payment").permitAll()
                         .requestMatchers("/swagger-ui/**", "/v3/api-docs/**").permitAll()
-                        // 3. Authenticate only the API routes
+                        // Health checks, and the Prometheus scrape only on the (private) management port;
+                        // no other actuator endpoint is reachable
+                        .requestMatchers("/actuator/health", "/actuator/health/**", "/livez", "/readyz").permitAll()
+                        .requestMatchers(request -> request.getLocalPort() == managementPort
+                                && "/actuator/prometheus".equals(request.getRequestURI())).permitAll()
+                        .requestMatchers("/actuator/**").denyAll()
+                        // 3. Admin endpoints need the admin role; every other API route just needs a login
+                        .requestMatchers("/api/admin/**").hasRole("ADMIN")
                         .requestMatchers("/api/**").authenticated()
                         // 4. Allow all other routes (handled by React Router: /login, /dashboard, etc.)
                         .anyRequest().permitAll()
@@ -0,0 +1,71 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.controller;
+
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.dto.ContractFilter;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.model.OutboxEmail;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.service.ContractExportService;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.service.EmailOutboxService;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.service.RiskAnalyticsService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+// Everything under /api/admin is restricted to ROLE_ADMIN in SecurityConfiguration
+@RestController
+@RequestMapping("/api/admin")
+@CrossOrigin(origins = "*")
+public class AdminController {
+
+    @Autowired
+    private ContractExportService contractExportService;
+
+    @Autowired
+    private EmailOutboxService emailOutboxService;
+
+    @Autowired
+    private RiskAnalyticsService riskAnalyticsService;
+
+    // Audit export: NDJSON streamed from a Mongo cursor, optionally gzipped.
+    // Written synchronously on the request thread so long exports aren't cut off by the async timeout.
+    @GetMapping("/contracts/export")
+    public void exportContracts(@RequestParam(value = "fields", required = false) String fields,
+                                @RequestParam(value = "gzip", defaultValue = "false") boolean gzip,
+                                ContractFilter filter,
+                                HttpServletResponse response) throws IOException {
+        List<String> selected = contractExportService.resolveFields(fields);
+
+        String filename = "contracts-" + LocalDate.now() + (gzip ? ".ndjson.gz" : ".ndjson");
+        response.setContentType(gzip ? "application/gzip" : "application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename);
+        // Closed on failure too, so the deflater's native memory is released
+        try (OutputStream out = gzip ? new GZIPOutputStream(response.getOutputStream(), 64 * 1024) : response.getOutputStream()) {
+            contractExportService.export(filter, selected, out);
+        }
+    }
+
+    // Risk analytics across every user's contracts
+    @GetMapping("/analytics")
+    public Map<String, Object> getGlobalAnalytics(@RequestParam(value = "period", defaultValue = "all") String period) {
+        return riskAnalyticsService.getGlobalAnalytics(period);
+    }
+
+    // Outgoing mail, e.g. ?status=FAILED
+    @GetMapping("/email-outbox")
+    public List<OutboxEmail> getEmailOutbox(@RequestParam(value = "status", required = false) String status,
+                                            @RequestParam(value = "limit", defaultValue = "50") int limit) {
+        return emailOutboxService.list(status, limit);
+    }
+
+    @PostMapping("/email-outbox/{id}/retry")
+    public OutboxEmail retryEmail(@PathVariable String id) {
+        return emailOutboxService.retry(id);
+    }
+}
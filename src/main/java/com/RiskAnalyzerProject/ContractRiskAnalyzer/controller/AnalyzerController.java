@@ -1,18 +1,37 @@
 package com.RiskAnalyzerProject.ContractRiskAnalyzer.controller;
 
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.dto.BulkReportRequest;
 import com.RiskAnalyzerProject.ContractRiskAnalyzer.dto.ChatRequest;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.dto.ContractFilter;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.dto.ContractPage;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.dto.SearchResult;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.model.AnalysisJob;
 import com.RiskAnalyzerProject.ContractRiskAnalyzer.model.Contract;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.service.AnalysisJobService;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.service.ContractSearchService;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.service.RiskAnalyticsService;
 import com.RiskAnalyzerProject.ContractRiskAnalyzer.service.ContractService;
+import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
 
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.security.Principal;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 @RestController
@@ -20,35 +39,109 @@ import java.util.UUID;
 @CrossOrigin(origins = "*")
 public class AnalyzerController {
 
+    private static final long CHAT_STREAM_TIMEOUT_MS = 120_000;
+
     @Autowired
     private ContractService contractService;
 
     @Autowired
-    private com.RiskAnalyzerProject.ContractRiskAnalyzer.service.PdfReportService pdfReportService;
+    private com.RiskAnalyzerProject.ContractRiskAnalyzer.service.ReportCacheService reportCacheService;
+
+    @Autowired
+    private com.RiskAnalyzerProject.ContractRiskAnalyzer.service.BulkReportService bulkReportService;
 
     @Autowired
     private com.RiskAnalyzerProject.ContractRiskAnalyzer.service.RateLimitingService rateLimitingService;
 
+    @Autowired
+    private AnalysisJobService analysisJobService;
+
+    @Autowired
+    private ContractSearchService contractSearchService;
+
+    @Autowired
+    private RiskAnalyticsService riskAnalyticsService;
+
     @GetMapping
-    public List<Contract> getAllContracts( Principal principal) {
-        return contractService.getAllContracts(principal.getName());
+    public ContractPage getAllContracts(Principal principal,
+                                        @RequestParam(value = "cursor", required = false) String cursor,
+                                        @RequestParam(value = "limit", defaultValue = "50") int limit,
+                                        ContractFilter filter) {
+        return contractService.getAllContracts(principal.getName(), cursor, limit, filter);
+    }
+
+    @GetMapping("/analytics")
+    public Map<String, Object> getAnalytics(Principal principal,
+                                            @RequestParam(value = "period", defaultValue = "all") String period) {
+        return riskAnalyticsService.getUserAnalytics(principal.getName(), period);
     }
+
+    @GetMapping("/search")
+    public List<SearchResult> searchContracts(Principal principal,
+                                              @RequestParam("q") String q,
+                                              @RequestParam(value = "limit", required = false) Integer limit) {
+        return contractSearchService.search(principal.getName(), q, limit);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Contract> getContractById(@PathVariable String id, Principal principal) {
-            return contractService.getContractById(id,principal.getName())
+            return contractService.getContractWithText(id,principal.getName())
                     .map(ResponseEntity::ok)
                     .orElse(ResponseEntity.status(403).build());
         }
     @GetMapping("/{id}/download-report")
-    public ResponseEntity<byte[]> downloadReport(@PathVariable String id, Principal principal) throws IOException {
+    public void downloadReport(@PathVariable String id, Principal principal,
+                               @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                               HttpServletResponse response) throws IOException {
         Contract contract = contractService.getContractById(id, principal.getName())
                 .orElseThrow(() -> new RuntimeException("Contract not found or access denied"));
-        // 1. Generate PDF
-        byte[] pdfBytes = pdfReportService.generateContractReport(contract);
-        return ResponseEntity.ok()
-                .header(org.springframework.http.HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=Analysis_Report_" + contract.getFilename() + ".pdf")
-                .contentType(MediaType.APPLICATION_PDF)
-                .body(pdfBytes);
+        String etag = reportCacheService.etag(contract);
+        response.setHeader(HttpHeaders.ETAG, etag);
+        // private: reports are per-user; no-cache: the browser revalidates, which is a 304 with no body
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        if (etagMatches(ifNoneMatch, etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        response.setContentType(MediaType.APPLICATION_PDF_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=Analysis_Report_" + contract.getFilename() + ".pdf");
+        Optional<Path> cached = reportCacheService.cached(contract);
+        if (cached.isPresent()) {
+            response.setContentLengthLong(Files.size(cached.get()));
+            Files.copy(cached.get(), response.getOutputStream());
+        } else {
+            // Streamed to the client while it's written to the cache
+            reportCacheService.renderTo(contract, response.getOutputStream());
+        }
+    }
+
+    // Reports for many contracts in one ZIP, streamed as each render finishes
+    @PostMapping("/reports/zip")
+    public void downloadReportsZip(Principal principal, @RequestBody BulkReportRequest request,
+                                   HttpServletResponse response) throws IOException {
+        org.springframework.data.mongodb.core.query.Query selection = bulkReportService.selection(principal.getName(), request);
+
+        response.setContentType("application/zip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=contract-reports-" + LocalDate.now() + ".zip");
+        bulkReportService.writeZip(selection, response.getOutputStream());
+    }
+
+    // If-None-Match may be "*", a single tag or a comma separated list, possibly weak (W/"...")
+    private static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
     }
     @GetMapping("/rate-limit")
     public ResponseEntity<Map<String, Object>> getRateLimit(Principal principal) {
@@ -65,31 +158,102 @@ public class AnalyzerController {
     }
 
     @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<Contract> uploadContract(@RequestParam("file") MultipartFile file, Principal  principal,
+    public ResponseEntity<?> uploadContract(@RequestParam("file") MultipartFile file, Principal  principal,
                                                    @RequestParam(value = "jurisdiction", defaultValue = "General")String jurisdiction,
-                                                   @RequestParam(value = "contractType", defaultValue = "General Contract") String contractType) throws IOException, java.io.IOException {
+                                                   @RequestParam(value = "contractType", defaultValue = "General Contract") String contractType,
+                                                   @RequestParam(value = "async", defaultValue = "false") boolean async) throws IOException, java.io.IOException {
+        if (async) {
+            // Returns as soon as the file is spooled; follow progress via the job endpoints
+            AnalysisJob job = analysisJobService.submit(file, principal.getName(), jurisdiction, contractType);
+            String statusUrl = "/api/contracts/jobs/" + job.getId();
+            return ResponseEntity.accepted()
+                    .location(URI.create(statusUrl))
+                    .body(Map.of(
+                            "jobId", job.getId(),
+                            "status", job.getStatus(),
+                            "statusUrl", statusUrl,
+                            "eventsUrl", statusUrl + "/events"
+                    ));
+        }
         Contract savedContract = contractService.processAndSaveContract(file , principal.getName(), jurisdiction, contractType);
         return ResponseEntity.ok(savedContract);
 }
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<AnalysisJob> getJob(@PathVariable String jobId, Principal principal) {
+        return ResponseEntity.ok(analysisJobService.getJob(jobId, principal.getName()));
+    }
+    @GetMapping(value = "/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamJobEvents(@PathVariable String jobId, Principal principal) {
+        return analysisJobService.subscribe(jobId, principal.getName());
+    }
     @PostMapping("/chat")
     public ResponseEntity<Map<String, String>> chatWithAI(@RequestBody ChatRequest request , Principal principal) {
             // Call the single unified method
-            String conversationId = request.getConversationId();
-            if (conversationId == null || conversationId.isEmpty()) {
-                conversationId = UUID.randomUUID().toString();
-            }
+            String conversationId = resolveConversationId(request);
             String secureConversationId = principal.getName() + "_" + conversationId;
 
             String response = contractService.chatWithAi(
                     request.getQuestion(),
                     request.getContractId(),
-                    secureConversationId
+                    secureConversationId,
+                    principal.getName()
             );
             return ResponseEntity.ok(Map.of(
                     "response", response,
                     "conversationId", conversationId
             ));
     }
+    // Same as /chat, but pushes the answer token by token as Server-Sent Events:
+    // "meta" (conversationId) -> "token"... -> "done", or "error"
+    @PostMapping(value = "/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChatWithAI(@RequestBody ChatRequest request, Principal principal) throws IOException {
+        String conversationId = resolveConversationId(request);
+        String secureConversationId = principal.getName() + "_" + conversationId;
+
+        // Built before the stream opens, so an unknown or foreign contract is still a plain 404
+        Flux<String> answer = contractService.streamChatWithAi(request.getQuestion(), request.getContractId(),
+                secureConversationId, principal.getName());
+
+        SseEmitter emitter = new SseEmitter(CHAT_STREAM_TIMEOUT_MS);
+        emitter.send(SseEmitter.event().name("meta").data(Map.of("conversationId", conversationId)));
+
+        Disposable.Swap subscription = Disposables.swap();
+        subscription.update(answer
+                .subscribe(
+                        // Tokens are wrapped in JSON: raw SSE data would lose a token's leading space
+                        token -> sendOrCancel(emitter, subscription, SseEmitter.event().name("token").data(Map.of("token", token))),
+                        error -> {
+                            sendOrCancel(emitter, subscription, SseEmitter.event().name("error")
+                                    .data(Map.of("message", String.valueOf(error.getMessage()))));
+                            emitter.complete();
+                        },
+                        () -> {
+                            sendOrCancel(emitter, subscription, SseEmitter.event().name("done").data(Map.of("conversationId", conversationId)));
+                            emitter.complete();
+                        }));
+
+        // Client disconnected or timed out: stop paying for tokens nobody will read
+        emitter.onCompletion(subscription::dispose);
+        emitter.onTimeout(subscription::dispose);
+        emitter.onError(e -> subscription.dispose());
+        return emitter;
+    }
+
+    private void sendOrCancel(SseEmitter emitter, Disposable subscription, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            subscription.dispose();
+        }
+    }
+
+    private String resolveConversationId(ChatRequest request) {
+        String conversationId = request.getConversationId();
+        if (conversationId == null || conversationId.isEmpty()) {
+            conversationId = UUID.randomUUID().toString();
+        }
+        return conversationId;
+    }
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deleteContract(@PathVariable String id, Principal principal) {
             contractService.deleteContract(id, principal.getName());
@@ -125,7 +125,7 @@ public class AuthController {
         authService.registerUser(user);
 
         // 6. Generate Real Login Token
-        String token = jwtUtil.generateToken(user.getUsername());
+        String token = jwtUtil.generateToken(user.getUsername(), user.getRole());
 
         return ResponseEntity.ok(Map.of("token", token));
     }
@@ -0,0 +1,12 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+// Contracts to include in a bulk report ZIP: explicit ids, a filter, or both (ids narrowed by the filter)
+@Data
+public class BulkReportRequest {
+    private List<String> ids;
+    private ContractFilter filter;
+}
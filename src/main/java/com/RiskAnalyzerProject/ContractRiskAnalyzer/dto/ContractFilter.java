@@ -0,0 +1,18 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.dto;
+
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+// Optional filters for the contract list; null fields are ignored. Dates are inclusive, in UTC.
+@Data
+public class ContractFilter {
+    private String owner;
+    private String riskLevel;
+    private String jurisdiction;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate from;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate to;
+}
@@ -0,0 +1,14 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+// One page of the contract list; pass nextCursor back to get the following page (null = last page)
+@Data
+@AllArgsConstructor
+public class ContractPage {
+    private List<ContractSummary> items;
+    private String nextCursor;
+}
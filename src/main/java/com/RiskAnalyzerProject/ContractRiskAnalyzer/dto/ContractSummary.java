@@ -0,0 +1,19 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.dto;
+
+import lombok.Data;
+
+import java.time.Instant;
+
+// What the dashboard list needs; a projection so Mongo never sends the analysis or text for it
+@Data
+public class ContractSummary {
+    private String id;
+    private String ownerUsername;
+    private String filename;
+    private String uploadDate;
+    private Instant uploadedAt;
+    private String jurisdiction;
+    private String contractType;
+    private String riskLevel;
+    private Integer riskScore;
+}
@@ -0,0 +1,16 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// One search hit; matchedIn is "text", "analysis" or "filename"
+@Data
+@AllArgsConstructor
+public class SearchResult {
+    private String contractId;
+    private String filename;
+    private String ownerUsername;
+    private double score;
+    private String matchedIn;
+    private String snippet;
+}
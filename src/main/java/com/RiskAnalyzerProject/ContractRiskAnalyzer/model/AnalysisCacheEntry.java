@@ -0,0 +1,24 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Second-tier (persistent) copy of a cached LLM result, so a redeploy doesn't throw away paid-for analyses.
+ * Mongo's TTL monitor removes entries once expiresAt has passed.
+ */
+@Data
+@Document(collection = "analysis_cache")
+public class AnalysisCacheEntry {
+
+    @Id
+    private String id; // cache name + ":" + cache key
+    private String cacheName;
+    private Object value;
+    private Instant createdAt;
+    private Instant expiresAt;
+    private Instant lastAccessedAt;
+}
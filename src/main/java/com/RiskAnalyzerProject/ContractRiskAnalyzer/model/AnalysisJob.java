@@ -0,0 +1,39 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Data
+@Document(collection = "analysis_jobs")
+public class AnalysisJob {
+
+    public enum Status {
+        QUEUED, EXTRACTING, OCR, ANALYZING, SAVING, DONE, FAILED;
+
+        public boolean isFinished() {
+            return this == DONE || this == FAILED;
+        }
+    }
+
+    @Id
+    private String id;
+    private String ownerUsername;
+    private String filename;
+    private String jurisdiction;
+    private String contractType;
+
+    private Status status;
+    private int pagesDone; // OCR progress, page n of m
+    private int pagesTotal;
+    private String contractId; // set once DONE
+    private String error; // set once FAILED
+
+    private String nodeId; // the instance running the job
+    private Instant heartbeatAt; // refreshed by that instance while the job is unfinished
+
+    private Instant createdAt;
+    private Instant updatedAt;
+}
@@ -0,0 +1,35 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One chat conversation: a bounded tail of recent messages plus a rolling summary of
+ * everything older, so loading it costs the same on turn 5 and turn 500.
+ */
+@Data
+@Document(collection = "chat_conversations")
+public class ChatConversation {
+
+    @Id
+    private String id; // conversation id
+    private String summary; // rolling summary of messages folded out of the window
+    private List<StoredMessage> messages = new ArrayList<>();
+    private long totalMessages;
+    private Instant updatedAt;
+
+    @Version
+    private Long version;
+
+    @Data
+    public static class StoredMessage {
+        private String role; // USER, ASSISTANT or SYSTEM
+        private String text;
+    }
+}
@@ -0,0 +1,38 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Clause-level inverted index of one contract, stored next to it (same id as the contract)
+ * so chat can rank clauses without loading the full contract text.
+ */
+@Data
+@Document(collection = "clause_indexes")
+public class ClauseIndex {
+
+    @Id
+    private String id; // = contract id
+    private List<Clause> clauses = new ArrayList<>();
+    private Map<String, List<Posting>> postings = new HashMap<>(); // term -> clauses containing it
+    private double avgClauseLength; // in terms
+
+    @Data
+    public static class Clause {
+        private String label; // "4.2", "Article 5", or "#12" when the clause has no number
+        private String text;
+        private int length; // in terms
+    }
+
+    @Data
+    public static class Posting {
+        private int clause; // index into clauses
+        private int tf;
+    }
+}
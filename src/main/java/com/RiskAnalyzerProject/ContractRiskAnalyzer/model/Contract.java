@@ -1,9 +1,12 @@
 package com.RiskAnalyzerProject.ContractRiskAnalyzer.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
 import org.springframework.data.mongodb.core.mapping.Document;
 import lombok.Data;
 
+import java.time.Instant;
+
 @Data
 @Document(collection = "contracts")
 public class Contract {
@@ -11,14 +14,26 @@ public class Contract {
     private String id;
     private String ownerUsername;
     private String filename;
-    private String uploadDate;
-    private String rawText; //Extract-> text from pdf
-    private String analysisJson; //Return->Json String by AI
+    private String uploadDate; //Kept for older clients; sort and filter on uploadedAt
+    private Instant uploadedAt;
+    @Transient
+    private String rawText; //Extract-> text from pdf; stored in contract_texts, only filled in for the detail view
+    private String analysisJson; //Canonical JSON of analysis, kept for older clients and exports
+    private ContractAnalysis analysis; //Parsed analysis, stored as a sub-document
+    private String riskLevel; //Copied from analysisJson at save time so lists don't parse it
+    private Integer riskScore;
     private String jurisdiction;
     private String contractType;
+    private String fileSha256; //SHA-256 of the uploaded PDF bytes
+    private String textSha256; //SHA-256 of the normalized extracted text
 
     public String getExtractedText() {
         return this.rawText;
     }
 
+    // Contracts saved before the typed analysis only have the JSON string
+    public ContractAnalysis resolvedAnalysis() {
+        return analysis != null ? analysis : ContractAnalysis.parse(analysisJson);
+    }
+
     }
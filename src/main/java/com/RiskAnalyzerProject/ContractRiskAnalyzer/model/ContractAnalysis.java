@@ -0,0 +1,142 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * The AI analysis of a contract, parsed and validated once when the model answers and stored as
+ * a sub-document on the contract. JSON names match the model's output format (and what the client reads).
+ */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ContractAnalysis {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private String summary;
+    @JsonProperty("risk_score")
+    private Integer riskScore;
+    @JsonProperty("risk_level")
+    private String riskLevel;
+    @JsonProperty("key_risks")
+    private List<KeyRisk> keyRisks = new ArrayList<>();
+    @JsonProperty("missing_clauses")
+    private List<String> missingClauses = new ArrayList<>();
+    private List<String> recommendations = new ArrayList<>();
+    @JsonProperty("comparison_notes")
+    private String comparisonNotes;
+
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class KeyRisk {
+        private String clause;
+        private String severity;
+        @JsonProperty("risk_explanation")
+        private String riskExplanation;
+    }
+
+    // Trailing commas are the most common defect in model JSON
+    private static final Pattern TRAILING_COMMA = Pattern.compile(",\\s*([}\\]])");
+
+    /**
+     * Parses model output, repairing the usual defects (code fences, prose around the object,
+     * trailing commas). Returns null when nothing usable can be recovered.
+     */
+    public static ContractAnalysis parse(String raw) {
+        JsonNode json = repair(raw);
+        if (json == null) {
+            return null;
+        }
+        ContractAnalysis analysis;
+        try {
+            analysis = MAPPER.treeToValue(json, ContractAnalysis.class);
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            return null;
+        }
+        return analysis.normalize() ? analysis : null;
+    }
+
+    // The JSON object in raw model output, or null. Also used for the per-part answers of long contracts.
+    public static JsonNode repair(String raw) {
+        if (raw == null || raw.isBlank()) {
+            return null;
+        }
+        String json = raw.trim();
+        int start = json.indexOf('{');
+        int end = json.lastIndexOf('}');
+        if (start < 0 || end <= start) {
+            return null;
+        }
+        json = json.substring(start, end + 1);
+        try {
+            return MAPPER.readTree(json);
+        } catch (JsonProcessingException e) {
+            try {
+                return MAPPER.readTree(TRAILING_COMMA.matcher(json).replaceAll("$1"));
+            } catch (JsonProcessingException again) {
+                return null;
+            }
+        }
+    }
+
+    // Fills what can be derived and rejects output with neither a summary nor a risk rating
+    private boolean normalize() {
+        if (riskScore != null) {
+            riskScore = Math.max(0, Math.min(100, riskScore));
+        }
+        riskLevel = normalizeLevel(riskLevel);
+        if (riskLevel == null && riskScore != null) {
+            riskLevel = riskScore >= 70 ? "High" : riskScore >= 40 ? "Medium" : "Low";
+        }
+        if (keyRisks == null) {
+            keyRisks = new ArrayList<>();
+        }
+        keyRisks.removeIf(r -> r == null || r.getClause() == null && r.getRiskExplanation() == null);
+        keyRisks.forEach(r -> r.setSeverity(normalizeLevel(r.getSeverity())));
+        if (missingClauses == null) {
+            missingClauses = new ArrayList<>();
+        }
+        if (recommendations == null) {
+            recommendations = new ArrayList<>();
+        }
+        return (summary != null && !summary.isBlank()) || riskLevel != null;
+    }
+
+    // "HIGH", "high risk", "Med" -> "High", "High", "Medium"; null if it isn't a level
+    public static String normalizeLevel(String level) {
+        if (level == null || level.isBlank()) {
+            return null;
+        }
+        String lower = level.trim().toLowerCase(Locale.ROOT);
+        if (lower.startsWith("high") || lower.equals("critical")) {
+            return "High";
+        }
+        if (lower.startsWith("med")) {
+            return "Medium";
+        }
+        if (lower.startsWith("low")) {
+            return "Low";
+        }
+        return null;
+    }
+
+    // Canonical JSON in the model's format; kept in Contract.analysisJson for older clients
+    public String toJson() {
+        try {
+            return MAPPER.writeValueAsString(this);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Extracted text of a contract, kept apart from the contract document so listing and
+ * dedup queries never drag megabytes of text along. Only detail, chat, indexing and search read it.
+ * The text index for portfolio search (filename, analysisText, text) lives on this collection.
+ */
+@Data
+@Document(collection = "contract_texts")
+public class ContractText {
+
+    @Id
+    private String id; // same id as the contract
+    private String ownerUsername; // copied from the contract so search can scope without a join
+    private String filename;
+    private String text;
+    private String analysisText; // the analysis JSON's prose, flattened for the text index
+}
@@ -0,0 +1,36 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * An email waiting to be sent (or already sent / given up on). Requests only insert these;
+ * EmailOutboxService does the SMTP work in the background.
+ */
+@Data
+@Document(collection = "email_outbox")
+public class OutboxEmail {
+
+    public enum Status {
+        PENDING, SENDING, SENT, FAILED
+    }
+
+    @Id
+    private String id;
+    private String to;
+    private String subject;
+    private String body;
+
+    private Status status;
+    private int attempts;
+    private Instant nextAttemptAt;
+    private Instant lockedUntil; // while SENDING; a node that dies mid-send releases the claim when this passes
+    private String lastError;
+
+    private Instant createdAt;
+    private Instant sentAt;
+    private Instant discardAfter; // OTP mails are useless once the code has expired
+}
@@ -0,0 +1,21 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * A logged-out token, shared by every node. Mongo's TTL monitor drops it once the token itself
+ * would have expired, since an expired token is rejected anyway.
+ */
+@Data
+@Document(collection = "revoked_tokens")
+public class RevokedToken {
+
+    @Id
+    private String id; // the token's jti, or the SHA-256 of the token for ones issued without it
+    private Instant revokedAt;
+    private Instant expiresAt;
+}
@@ -0,0 +1,31 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Materialized risk counters for one scope and period, e.g. "user:alice:2026-10" or "global:all".
+ * Kept current with $inc on every contract save and delete, so the analytics page reads one document.
+ */
+@Data
+@Document(collection = "risk_aggregates")
+public class RiskAggregate {
+
+    @Id
+    private String id; // scope + ":" + period
+    private String scope; // "global" or "user:<username>"
+    private String period; // "all" or "yyyy-MM" (UTC, by upload time)
+    private long total;
+    private Map<String, Long> byRiskLevel = new HashMap<>();
+    private Map<String, Long> byJurisdiction = new HashMap<>();
+    private Map<String, Long> byContractType = new HashMap<>();
+    private Map<String, Long> scoreHistogram = new HashMap<>(); // "0-9", "10-19", ... "90-100"
+    private Map<String, Long> riskCategories = new HashMap<>(); // contracts with at least one risk in the category
+    private Map<String, Long> missingClauses = new HashMap<>(); // by clause category, "Other" for the rest
+    private Instant updatedAt;
+}
@@ -0,0 +1,9 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.repository;
+
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.model.AnalysisJob;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface AnalysisJobRepository extends MongoRepository<AnalysisJob, String> {
+}
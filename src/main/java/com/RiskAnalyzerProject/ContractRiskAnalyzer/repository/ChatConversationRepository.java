@@ -0,0 +1,9 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.repository;
+
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.model.ChatConversation;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ChatConversationRepository extends MongoRepository<ChatConversation, String> {
+}
@@ -0,0 +1,9 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.repository;
+
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.model.ClauseIndex;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ClauseIndexRepository extends MongoRepository<ClauseIndex, String> {
+}
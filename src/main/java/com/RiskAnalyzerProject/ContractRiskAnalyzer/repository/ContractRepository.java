@@ -5,9 +5,15 @@ import com.RiskAnalyzerProject.ContractRiskAnalyzer.model.Contract;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ContractRepository extends MongoRepository<Contract,String> {
     List<Contract> findByOwnerUsername(String ownerUsername);
 
+    // Dedup lookups: same bytes, or same text, analyzed under the same jurisdiction and type
+    Optional<Contract> findFirstByFileSha256AndJurisdictionAndContractType(String fileSha256, String jurisdiction, String contractType);
+
+    Optional<Contract> findFirstByTextSha256AndJurisdictionAndContractType(String textSha256, String jurisdiction, String contractType);
+
 }
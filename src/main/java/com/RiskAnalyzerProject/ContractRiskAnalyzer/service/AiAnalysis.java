@@ -1,5 +1,20 @@
 package com.RiskAnalyzerProject.ContractRiskAnalyzer.service;
 
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.config.CacheConfig;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.model.ContractAnalysis;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.util.ContentHash;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.util.ContractTextSplitter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.context.ContextExecutorService;
+import io.micrometer.context.ContextSnapshotFactory;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.openai.OpenAiChatOptions;
 import org.springframework.ai.chat.memory.ChatMemory;
@@ -8,28 +23,230 @@ import org.springframework.ai.chat.messages.Message;
 import org.springframework.ai.chat.messages.UserMessage;
 import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class AiAnalysis {
 
+    private static final Logger logger = LoggerFactory.getLogger(AiAnalysis.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    // Part of the analysis cache key. Bump it whenever the analysis prompt changes so old results aren't reused.
+    public static final String PROMPT_VERSION = "3";
+
+    private static final String RETRY_NOTE = """
+                YOUR PREVIOUS ANSWER WAS NOT VALID JSON. Reply with the JSON object only, exactly in the format below.
+
+                """;
+
+    private static final String CHUNK_NOTE = """
+                PARTIAL DOCUMENT:
+                     This is PART %d of %d of a longer contract. Report only risks found in this part.
+                     Add one extra JSON field, "present_clauses": ["Short names of protective clauses that ARE in this part"],
+                     so missing clauses can be reconciled across parts.
+                """;
+
     private final ChatClient chatClient;
     private final ChatMemory chatMemory;
+    private final LlmGateway llmGateway;
+
+    // Texts up to this size go to the model in one call; longer ones are analyzed in chunks
+    @Value("${app.analysis.single-call-max-chars:12000}")
+    private int singleCallMaxChars;
+
+    @Value("${app.analysis.chunk-chars:10000}")
+    private int chunkMaxChars;
+
+    // Chunk size grows past chunk-chars rather than exceeding this many LLM calls per contract
+    @Value("${app.analysis.max-chunks:12}")
+    private int maxChunks;
+
+    @Value("${app.analysis.max-parallel-chunks:4}")
+    private int maxParallelChunks;
+
+    private ExecutorService chunkExecutor;
 
     @Autowired
-    public AiAnalysis(ChatModel chatModel, ChatMemory chatMemory) {
+    public AiAnalysis(ChatModel chatModel, ChatMemory chatMemory, LlmGateway llmGateway, ObservationRegistry observationRegistry) {
         this.chatMemory = chatMemory;
-        this.chatClient = ChatClient.builder(chatModel).build();
+        this.llmGateway = llmGateway;
+        // Observed calls report latency and prompt/completion token usage (gen_ai.client.*) and show up as spans
+        this.chatClient = ChatClient.builder(chatModel, observationRegistry, null, null).build();
+    }
+
+    @PostConstruct
+    public void init() {
+        // Shared by all uploads, so this also caps concurrent chunk calls node-wide
+        AtomicInteger threadCount = new AtomicInteger();
+        // Context-propagating, so chunk calls are traced as part of the upload that made them
+        chunkExecutor = ContextExecutorService.wrap(Executors.newFixedThreadPool(maxParallelChunks,
+                r -> new Thread(r, "analysis-chunk-" + threadCount.incrementAndGet())),
+                ContextSnapshotFactory.builder().build());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        chunkExecutor.shutdown();
+    }
+
+    @Cacheable(value = CacheConfig.CONTRACT_ANALYSIS_CACHE, key = "T(com.RiskAnalyzerProject.ContractRiskAnalyzer.service.AiAnalysis).cacheKey(#contractText, #jurisdiction, #contractType)")
+    public ContractAnalysis AnalysisContract(String contractText, String jurisdiction, String contractType) {
+        // The cache only helps once a result exists; concurrent uploads of the same text share one analysis
+        return llmGateway.coalesce("analysis|" + cacheKey(contractText, jurisdiction, contractType), () -> {
+            if (contractText.length() <= singleCallMaxChars) {
+                return callValidated(buildAnalysisPrompt(jurisdiction, contractType, "") + contractText);
+            }
+            return analyzeInChunks(contractText, jurisdiction, contractType);
+        });
+    }
+
+    public static String cacheKey(String contractText, String jurisdiction, String contractType) {
+        return ContentHash.textFingerprint(contractText) + '|' + jurisdiction + '|' + contractType + "|p" + PROMPT_VERSION;
+    }
+
+    // Map: analyze clause-aligned chunks in parallel. Reduce: merge them back into one result of the same schema.
+    private ContractAnalysis analyzeInChunks(String contractText, String jurisdiction, String contractType) {
+        int chunkChars = Math.max(chunkMaxChars, (int) Math.ceil((double) contractText.length() / maxChunks));
+        List<String> chunks = ContractTextSplitter.chunk(contractText, chunkChars);
+        logger.info("Analyzing {} chars in {} chunks", contractText.length(), chunks.size());
+
+        List<CompletableFuture<JsonNode>> parts = new ArrayList<>();
+        for (int i = 0; i < chunks.size(); i++) {
+            String partNote = CHUNK_NOTE.formatted(i + 1, chunks.size());
+            String prompt = buildAnalysisPrompt(jurisdiction, contractType, partNote) + chunks.get(i);
+            int part = i + 1;
+            parts.add(CompletableFuture.supplyAsync(() -> parseChunkResult(callAnalysis(prompt), part), chunkExecutor));
+        }
+
+        List<JsonNode> results = new ArrayList<>();
+        for (CompletableFuture<JsonNode> part : parts) {
+            JsonNode result = part.join();
+            if (result != null) {
+                results.add(result);
+            }
+        }
+        if (results.isEmpty()) {
+            throw new RuntimeException("AI analysis failed for every part of the contract");
+        }
+        ContractAnalysis merged = ContractAnalysis.parse(mergeChunkResults(results, chunks.size()));
+        if (merged == null) {
+            throw new RuntimeException("AI analysis produced no usable result");
+        }
+        return merged;
+    }
+
+    // Parse once here so malformed output is caught now, not when someone downloads the report.
+    // One retry with a reminder of the format if the first answer can't be repaired.
+    private ContractAnalysis callValidated(String prompt) {
+        ContractAnalysis analysis = ContractAnalysis.parse(callAnalysis(prompt));
+        if (analysis == null) {
+            logger.warn("Model returned unparseable analysis, retrying once");
+            analysis = ContractAnalysis.parse(callAnalysis(RETRY_NOTE + prompt));
+        }
+        if (analysis == null) {
+            throw new RuntimeException("AI returned an analysis that could not be parsed. Please try again.");
+        }
+        return analysis;
+    }
+
+    private JsonNode parseChunkResult(String raw, int part) {
+        JsonNode result = ContractAnalysis.repair(raw);
+        if (result == null) {
+            logger.warn("Discarding unparseable analysis for part {}", part);
+        }
+        return result;
+    }
+
+    static String mergeChunkResults(List<JsonNode> results, int totalParts) {
+        int maxScore = 0;
+        Set<String> seenClauses = new HashSet<>();
+        List<JsonNode> risks = new ArrayList<>();
+        Set<String> missing = new LinkedHashSet<>();
+        Set<String> present = new HashSet<>();
+        Set<String> recommendations = new LinkedHashSet<>();
+        List<String> summaries = new ArrayList<>();
+        Set<String> notes = new LinkedHashSet<>();
+
+        for (JsonNode result : results) {
+            maxScore = Math.max(maxScore, result.path("risk_score").asInt(0));
+            for (JsonNode risk : result.path("key_risks")) {
+                if (seenClauses.add(risk.path("clause").asText("").trim().toLowerCase())) {
+                    risks.add(risk);
+                }
+            }
+            result.path("missing_clauses").forEach(n -> missing.add(n.asText().trim()));
+            result.path("present_clauses").forEach(n -> present.add(n.asText().trim().toLowerCase()));
+            result.path("recommendations").forEach(n -> recommendations.add(n.asText().trim()));
+            String summary = result.path("summary").asText("");
+            if (!summary.isBlank()) {
+                summaries.add(summary.trim());
+            }
+            String note = result.path("comparison_notes").asText("");
+            if (!note.isBlank()) {
+                notes.add(note.trim());
+            }
+        }
+
+        // A clause one part reports missing may well be in another part
+        missing.removeIf(m -> present.stream().anyMatch(p -> !p.isEmpty()
+                && (m.toLowerCase().contains(p) || p.contains(m.toLowerCase()))));
+        risks.sort(Comparator.comparingInt(r -> severityRank(r.path("severity").asText(""))));
+
+        ObjectNode merged = MAPPER.createObjectNode();
+        merged.put("summary", "Analyzed in " + totalParts + " parts. " + String.join(" ", summaries));
+        merged.put("risk_score", maxScore);
+        // The contract is as risky as its riskiest part
+        merged.put("risk_level", maxScore >= 70 ? "High" : maxScore >= 40 ? "Medium" : "Low");
+        ArrayNode riskArray = merged.putArray("key_risks");
+        risks.forEach(riskArray::add);
+        ArrayNode missingArray = merged.putArray("missing_clauses");
+        missing.forEach(missingArray::add);
+        ArrayNode recArray = merged.putArray("recommendations");
+        recommendations.forEach(recArray::add);
+        merged.put("comparison_notes", String.join(" ", notes));
+        return merged.toString();
+    }
+
+    private static int severityRank(String severity) {
+        return switch (severity.toLowerCase()) {
+            case "high" -> 0;
+            case "medium" -> 1;
+            case "low" -> 2;
+            default -> 3;
+        };
     }
 
-    @Cacheable(value = "contractAnalysis", key = "#contractText.hashCode()+ #jurisdiction + #contractType")
-    public String AnalysisContract(String contractText, String jurisdiction, String contractType) {
-        String safeText = contractText.length() > 10000
-                ? contractText.substring(0, 10000) : contractText;
-        String prompt = """
+    private String callAnalysis(String prompt) {
+       // Force temperature to 0.0 for consistent analysis
+        OpenAiChatOptions options = OpenAiChatOptions.builder()
+                .temperature(0.5)
+                .build();
+        // Call the AI model
+        return llmGateway.call(() -> chatClient.prompt()
+                .user(prompt)
+                .options(options)
+                .call()
+                .content());
+    }
+
+    private String buildAnalysisPrompt(String jurisdiction, String contractType, String partNote) {
+        return """
                 ROLE:
                      You are a Strict Legal Risk Auditor. Your job is to protect the user by finding EVERY possible liability, loophole, or unfair term.
                      Do not be polite. Be paranoid and critical.
@@ -69,44 +286,70 @@ public class AiAnalysis {
                           "comparison_notes": "How this contract compares to industry standards" 
                         }
                 
+                %s
                 CONTRACT TEXT:
-                """.formatted(jurisdiction.toUpperCase(), contractType.toUpperCase(), contractType.toUpperCase()) + safeText;
-       // Force temperature to 0.0 for consistent analysis
-        OpenAiChatOptions options = OpenAiChatOptions.builder()
-                .temperature(0.5)
-                .build();
-        // Call the AI model
-        return chatClient.prompt()
-                .user(prompt)
-                .options(options)
+                """.formatted(jurisdiction.toUpperCase(), contractType.toUpperCase(), partNote);
+    }
+    public String chatWithAI(String question , String contractClauses,String conversationId) {
+        List<Message> history = chatMemory.get(conversationId);
+        String response = llmGateway.call(() -> chatClient.prompt()
+                .system(buildChatSystemPrompt(contractClauses))
+                .messages(history)
+                .user(question)
+                .options(chatOptions())
                 .call()
-                .content();
+                .content());
+        chatMemory.add(conversationId, List.of(new UserMessage(question), new AssistantMessage(response)));
+
+        return response;
+    }
 
+    // Same conversation as chatWithAI, but tokens are emitted as the model produces them.
+    // Memory is only updated once the stream completes; cancelling the subscription cancels the upstream call.
+    // The memory write is a blocking Mongo round trip, so it runs on boundedElastic rather than the
+    // client's event loop, after the model stream (and with it the gateway permit) is done.
+    public Flux<String> streamChatWithAI(String question, String contractClauses, String conversationId) {
+        StringBuilder answer = new StringBuilder();
+        List<Message> history = chatMemory.get(conversationId);
+        return llmGateway.stream(() -> chatClient.prompt()
+                        .system(buildChatSystemPrompt(contractClauses))
+                        .messages(history)
+                        .user(question)
+                        .options(chatOptions())
+                        .stream()
+                        .content())
+                .doOnNext(answer::append)
+                .concatWith(Mono.<String>fromRunnable(() -> chatMemory.add(conversationId,
+                                List.of(new UserMessage(question), new AssistantMessage(answer.toString()))))
+                        .subscribeOn(Schedulers.boundedElastic()));
     }
-    public String chatWithAI(String question , String contractText,String conversationId) {
-        String prompt = question;
-        if (contractText != null && !contractText.isEmpty()) {
-            String safeText = contractText.length() > 15000
-                    ? contractText.substring(0, 15000)
-                    : contractText;
-            prompt = """
+
+    private OpenAiChatOptions chatOptions() {
+        return OpenAiChatOptions.builder()
+                .model("llama-3.3-70b-versatile")
+                .temperature(0.5)
+                .build();
+    }
+
+    private String buildChatSystemPrompt(String contractClauses) {
+        if (contractClauses != null && !contractClauses.isEmpty()) {
+            return """
                 ROLE:
                     You are a strict Legal Contract Analyst.
                 
                 INSTRUCTIONS:
-                    1. Answer the user's question using **ONLY** the contract text below.
-                    2. **CITE YOUR SOURCES**: When you make a claim, mention the specific Clause (e.g., "According to Clause 4.2...").
-                    3. If the answer is NOT in the text, say: "I cannot find that information in this specific contract." Do not guess.
+                    1. Answer the user's question using **ONLY** the contract clauses below. They are the parts of the contract most relevant to the question.
+                    2. **CITE YOUR SOURCES**: When you make a claim, mention the clause number shown in brackets (e.g., "According to Clause 4.2...").
+                    3. If the answer is NOT in these clauses, say: "I cannot find that information in this specific contract." Do not guess.
                     4. Keep answers concise and direct.
                 
-                --- CONTRACT TEXT START ---
+                --- RELEVANT CONTRACT CLAUSES START ---
                 %s
-                --- CONTRACT TEXT END ---
-                """.formatted(safeText);
-
-            // SCENARIO 2: GENERAL TALK (Helpful Assistant)
-        } else {
-            prompt = """
+                --- RELEVANT CONTRACT CLAUSES END ---
+                """.formatted(contractClauses);
+        }
+        // SCENARIO 2: GENERAL TALK (Helpful Assistant)
+        return """
                 ROLE:
                     You are an expert AI Legal Assistant.
                 
@@ -116,30 +359,5 @@ public class AiAnalysis {
                     3. Be professional, clear, and educational.
                     4. If asked about a specific document, ask the user to upload it first.
                 """;
-        }
-        // 1. Retrieve full history
-        List<Message> fullHistory = chatMemory.get(conversationId);
-        int maxHistory = 20;
-        List<Message> recentHistory;
-        if (fullHistory.size() > maxHistory) {
-            recentHistory = fullHistory.subList(fullHistory.size() - maxHistory, fullHistory.size());
-        } else {
-            recentHistory = fullHistory;
-        }
-        OpenAiChatOptions options = OpenAiChatOptions.builder()
-                .model("llama-3.3-70b-versatile")
-                .temperature(0.5)
-                .build();
-        String response =  chatClient.prompt()
-                .system(prompt)
-                .messages(recentHistory)
-                .user(question)
-                .options(options)
-                .call()
-                .content();
-        chatMemory.add(conversationId, new UserMessage(question));
-        chatMemory.add(conversationId, new AssistantMessage(response));
-
-        return response;
     }
 }
@@ -0,0 +1,309 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.service;
+
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.exception.AppException;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.exception.ResourceNotFound;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.model.AnalysisJob;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.model.Contract;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.repository.AnalysisJobRepository;
+import io.micrometer.context.ContextSnapshotFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs uploads in the background so the HTTP thread returns as soon as the file is on disk.
+ * Progress is persisted on the job document (for polling from any node) and pushed to
+ * SSE subscribers connected to the node running the job.
+ */
+@Service
+public class AnalysisJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalysisJobService.class);
+
+    private static final ContextSnapshotFactory CONTEXT = ContextSnapshotFactory.builder().build();
+
+    @Autowired
+    private AnalysisJobRepository jobRepository;
+
+    @Autowired
+    private ContractService contractService;
+
+    @Autowired
+    private PdfService pdfService;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${app.jobs.pool-size:2}")
+    private int poolSize;
+
+    @Value("${app.jobs.queue-capacity:50}")
+    private int queueCapacity;
+
+    // No heartbeat for this long means the node running the job is gone
+    @Value("${app.jobs.stale-after-minutes:5}")
+    private long staleAfterMinutes;
+
+    @Value("${app.jobs.sse-timeout-minutes:15}")
+    private long sseTimeoutMinutes;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private ThreadPoolExecutor executor;
+    private final Map<String, List<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> new Thread(r, "analysis-job-" + threadCount.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public AnalysisJob submit(MultipartFile file, String username, String jurisdiction, String contractType) throws IOException {
+        if (executor.getQueue().remainingCapacity() == 0) {
+            throw new AppException("The analysis queue is full. Please try again in a few minutes.");
+        }
+        // The multipart file is gone once this request ends, so spool it now
+        SpooledPdf spooled = pdfService.spool(file);
+        try {
+            // Spent only once the file is on disk; given back below if the job never starts
+            contractService.checkUploadQuota(username);
+        } catch (RuntimeException e) {
+            spooled.close();
+            throw e;
+        }
+
+        AnalysisJob job = new AnalysisJob();
+        job.setOwnerUsername(username);
+        job.setFilename(file.getOriginalFilename());
+        job.setJurisdiction(jurisdiction);
+        job.setContractType(contractType);
+        job.setStatus(AnalysisJob.Status.QUEUED);
+        job.setNodeId(nodeId);
+        job.setCreatedAt(Instant.now());
+        job.setUpdatedAt(job.getCreatedAt());
+        job.setHeartbeatAt(job.getCreatedAt());
+        AnalysisJob saved;
+        try {
+            saved = jobRepository.save(job);
+        } catch (RuntimeException e) {
+            spooled.close();
+            contractService.refundUploadQuota(username);
+            throw e;
+        }
+
+        try {
+            // Carries the request's trace into the worker, so the job's spans join the upload's trace
+            executor.execute(CONTEXT.captureAll().wrap(() -> run(saved, spooled)));
+        } catch (RejectedExecutionException e) {
+            spooled.close();
+            contractService.refundUploadQuota(username);
+            saved.setStatus(AnalysisJob.Status.FAILED);
+            saved.setError("Analysis queue is full");
+            jobRepository.save(saved);
+            throw new AppException("The analysis queue is full. Please try again in a few minutes.");
+        }
+        return saved;
+    }
+
+    // Jobs can sit QUEUED (or in one long LLM call) for a long time on a healthy node, so liveness is
+    // this heartbeat rather than how recently the job last changed stage
+    @Scheduled(fixedDelayString = "${app.jobs.heartbeat-ms:60000}")
+    public void heartbeat() {
+        try {
+            mongoTemplate.updateMulti(
+                    Query.query(Criteria.where("nodeId").is(nodeId)
+                            .and("status").nin(AnalysisJob.Status.DONE, AnalysisJob.Status.FAILED)),
+                    new Update().set("heartbeatAt", Instant.now()), AnalysisJob.class);
+        } catch (RuntimeException e) {
+            logger.warn("Job heartbeat failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Jobs only live in the memory of the node running them, so one that was queued or mid-run when
+     * its node went down never finishes. Unfinished jobs whose node stopped sending heartbeats are
+     * failed, on start and then periodically.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.jobs.stale-sweep-ms:300000}", initialDelayString = "${app.jobs.stale-sweep-ms:300000}")
+    public void failStaleJobs() {
+        Instant cutoff = Instant.now().minus(Duration.ofMinutes(staleAfterMinutes));
+        try {
+            Query query = Query.query(new Criteria().andOperator(
+                    Criteria.where("status").nin(AnalysisJob.Status.DONE, AnalysisJob.Status.FAILED),
+                    Criteria.where("nodeId").ne(nodeId),
+                    new Criteria().orOperator(
+                            Criteria.where("heartbeatAt").lt(cutoff),
+                            // Jobs from before the heartbeat existed
+                            Criteria.where("heartbeatAt").exists(false).and("updatedAt").lt(cutoff))));
+            long failed = mongoTemplate.updateMulti(query, new Update()
+                    .set("status", AnalysisJob.Status.FAILED)
+                    .set("error", "The server restarted before the analysis finished. Please upload the file again.")
+                    .set("updatedAt", Instant.now()), AnalysisJob.class).getModifiedCount();
+            if (failed > 0) {
+                logger.info("Marked {} abandoned analysis jobs as failed", failed);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Stale job sweep failed: {}", e.getMessage());
+        }
+    }
+
+    private void run(AnalysisJob job, SpooledPdf spooled) {
+        try (spooled) {
+            Contract contract = contractService.analyzeAndSave(spooled, job.getFilename(), job.getOwnerUsername(),
+                    job.getJurisdiction(), job.getContractType(),
+                    (stage, done, total) -> updateProgress(job, stage, done, total));
+            job.setContractId(contract.getId());
+            updateProgress(job, AnalysisJob.Status.DONE, job.getPagesDone(), job.getPagesTotal());
+        } catch (RuntimeException e) {
+            logger.error("Analysis job {} failed", job.getId(), e);
+            job.setError(e.getMessage());
+            updateProgress(job, AnalysisJob.Status.FAILED, job.getPagesDone(), job.getPagesTotal());
+        }
+    }
+
+    // OCR pages report from the pool threads as they finish, so updates can race each other
+    private void updateProgress(AnalysisJob job, AnalysisJob.Status stage, int done, int total) {
+        synchronized (job) {
+            if (job.getStatus() == AnalysisJob.Status.FAILED) {
+                return; // failed elsewhere (see below); nothing more to report
+            }
+            if (stage == AnalysisJob.Status.OCR && (job.getStatus().compareTo(AnalysisJob.Status.OCR) > 0
+                    || job.getStatus() == AnalysisJob.Status.OCR && done < job.getPagesDone())) {
+                return; // a later count (or a later stage) already went out
+            }
+            job.setStatus(stage);
+            if (stage == AnalysisJob.Status.OCR) {
+                job.setPagesDone(done);
+                job.setPagesTotal(total);
+            }
+            job.setUpdatedAt(Instant.now());
+            // Only the fields the worker owns, and never over a FAILED the sweep already wrote
+            Update update = new Update()
+                    .set("status", job.getStatus())
+                    .set("pagesDone", job.getPagesDone())
+                    .set("pagesTotal", job.getPagesTotal())
+                    .set("updatedAt", job.getUpdatedAt())
+                    .set("heartbeatAt", job.getUpdatedAt());
+            if (job.getContractId() != null) {
+                update.set("contractId", job.getContractId());
+            }
+            if (job.getError() != null) {
+                update.set("error", job.getError());
+            }
+            long updated = mongoTemplate.updateFirst(
+                    Query.query(Criteria.where("_id").is(job.getId()).and("status").ne(AnalysisJob.Status.FAILED)),
+                    update, AnalysisJob.class).getModifiedCount();
+            if (updated == 0) {
+                logger.warn("Analysis job {} was already marked failed; not reporting {}", job.getId(), stage);
+                jobRepository.findById(job.getId()).ifPresent(stored -> {
+                    job.setStatus(stored.getStatus());
+                    job.setError(stored.getError());
+                });
+            }
+            publish(job);
+        }
+    }
+
+    public AnalysisJob getJob(String jobId, String username) {
+        AnalysisJob job = jobRepository.findById(jobId)
+                .orElseThrow(() -> new ResourceNotFound("Job not found with id: " + jobId));
+        if (!job.getOwnerUsername().equals(username)) {
+            // Don't reveal that someone else's job exists
+            throw new ResourceNotFound("Job not found with id: " + jobId);
+        }
+        return job;
+    }
+
+    public SseEmitter subscribe(String jobId, String username) {
+        getJob(jobId, username); // ownership check
+        SseEmitter emitter = new SseEmitter(TimeUnit.MINUTES.toMillis(sseTimeoutMinutes));
+
+        // Listen before reading the state; otherwise a job finishing in between is published to nobody
+        subscribers.compute(jobId, (id, emitters) -> {
+            List<SseEmitter> list = emitters != null ? emitters : new CopyOnWriteArrayList<>();
+            list.add(emitter);
+            return list;
+        });
+        Runnable remove = () -> unsubscribe(jobId, emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+
+        // Current state first, so a late subscriber doesn't wait for the next stage change
+        AnalysisJob job = jobRepository.findById(jobId)
+                .orElseThrow(() -> new ResourceNotFound("Job not found with id: " + jobId));
+        send(emitter, job);
+        if (job.getStatus().isFinished()) {
+            emitter.complete();
+        }
+        return emitter;
+    }
+
+    private void unsubscribe(String jobId, SseEmitter emitter) {
+        subscribers.computeIfPresent(jobId, (id, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+
+    private void publish(AnalysisJob job) {
+        boolean finished = job.getStatus().isFinished();
+        List<SseEmitter> emitters = finished ? subscribers.remove(job.getId()) : subscribers.get(job.getId());
+        if (emitters == null) {
+            return;
+        }
+        for (SseEmitter emitter : emitters) {
+            send(emitter, job);
+            if (finished) {
+                emitter.complete();
+            }
+        }
+    }
+
+    private void send(SseEmitter emitter, AnalysisJob job) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .name("progress")
+                    .id(job.getStatus() + ":" + job.getPagesDone())
+                    .data(job));
+        } catch (IOException | IllegalStateException e) {
+            // Client went away; the completion/error callbacks clean up the subscription
+            emitter.completeWithError(e);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.service;
+
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.model.AnalysisJob;
+
+/**
+ * Receives stage changes from the extract -> analyze -> save pipeline.
+ * {@code done}/{@code total} are only meaningful for the OCR stage (pages).
+ */
+@FunctionalInterface
+public interface AnalysisProgress {
+
+    AnalysisProgress NONE = (stage, done, total) -> { };
+
+    void update(AnalysisJob.Status stage, int done, int total);
+
+    default void update(AnalysisJob.Status stage) {
+        update(stage, 0, 0);
+    }
+}
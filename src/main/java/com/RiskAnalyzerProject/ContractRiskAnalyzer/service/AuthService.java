@@ -41,6 +41,9 @@ public class AuthService {
     @Autowired
     private TokenBlacklistService tokenBlacklistService;
 
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
     public boolean emailExists(String email) {
         return userRepository.existsByEmail(email);
     }
@@ -110,7 +113,7 @@ public class AuthService {
         User user = validateOtp(username, otp, true);
         user.setOtp(null); // Clear OTP
         userRepository.save(user);
-        return jwtUtil.generateToken(username);
+        return jwtUtil.generateToken(username, user.getRole());
     }
     public void verifyOtp(String email, String otp) {
         validateOtp(email, otp, false);
@@ -176,5 +179,6 @@ public class AuthService {
 
         // 3. Delete the user
         userRepository.delete(user);
+        userDetailsService.evict(username);
     }
 }
\ No newline at end of file
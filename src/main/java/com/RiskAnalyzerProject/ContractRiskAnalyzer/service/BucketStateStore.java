@@ -0,0 +1,24 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.service;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Where rate-limit buckets live when they're shared between nodes. Bucket4j hands us its state as
+ * opaque bytes; the store only has to give every write a version and refuse stale ones.
+ */
+public interface BucketStateStore {
+
+    record VersionedState(byte[] state, long version) {
+    }
+
+    Optional<VersionedState> read(String key);
+
+    /**
+     * Stores {@code state} only if the stored version is still {@code expectedVersion}
+     * (0 = nothing stored yet). Returns false if another writer got there first.
+     */
+    boolean compareAndSwap(String key, long expectedVersion, byte[] state, Instant expiresAt);
+
+    void delete(String key);
+}
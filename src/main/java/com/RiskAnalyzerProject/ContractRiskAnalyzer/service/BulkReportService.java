@@ -0,0 +1,176 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.service;
+
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.dto.BulkReportRequest;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.dto.ContractFilter;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.exception.AppException;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.exception.ResourceNotFound;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.model.Contract;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Many contract reports in one ZIP. Reports render in parallel into the report cache and are added
+ * to the archive in completion order, so the download starts with the first finished report and
+ * only a few renders are ever in flight, however many contracts are selected.
+ */
+@Service
+public class BulkReportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkReportService.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private UserRoleService userRoleService;
+
+    @Autowired
+    private ReportCacheService reportCacheService;
+
+    @Autowired
+    private PdfReportService pdfReportService;
+
+    @Value("${app.report.bulk-threads:4}")
+    private int threads;
+
+    @Value("${app.report.bulk-max-contracts:500}")
+    private int maxContracts;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        // Shared by all bulk downloads, so concurrent exports can't take over the CPU
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threads,
+                r -> new Thread(r, "report-render-" + threadCount.incrementAndGet()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Resolved and size-checked before the response starts, so errors still come back as JSON
+    public Query selection(String username, BulkReportRequest request) {
+        List<Criteria> criteria = ContractService.filterCriteria(
+                request.getFilter() != null ? request.getFilter() : new ContractFilter());
+        if (request.getIds() != null && !request.getIds().isEmpty()) {
+            List<ObjectId> ids = request.getIds().stream().filter(ObjectId::isValid).map(ObjectId::new).toList();
+            criteria.add(Criteria.where("_id").in(ids));
+        }
+        if (!userRoleService.isAdmin(username)) {
+            criteria.add(Criteria.where("ownerUsername").is(username)); // others' ids are silently left out
+        }
+        Query query = new Query();
+        if (!criteria.isEmpty()) {
+            query.addCriteria(new Criteria().andOperator(criteria));
+        }
+
+        long count = mongoTemplate.count(query, Contract.class);
+        if (count == 0) {
+            throw new ResourceNotFound("No contracts match the selection");
+        }
+        if (count > maxContracts) {
+            throw new AppException("Too many contracts selected (" + count + "). The limit is " + maxContracts + " per download.");
+        }
+        return query.with(Sort.by(Sort.Direction.DESC, "uploadedAt", "_id"));
+    }
+
+    public int writeZip(Query query, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out);
+        zip.setLevel(Deflater.BEST_SPEED); // PDFs are already compressed
+        CompletionService<Rendered> renders = new ExecutorCompletionService<>(executor);
+        // Enough queued to keep every render thread busy while the archive is being written
+        int window = threads * 2;
+        Set<Future<Rendered>> inFlight = new HashSet<>();
+        int written = 0;
+        Set<String> names = new HashSet<>();
+
+        try (Stream<Contract> contracts = mongoTemplate.stream(query, Contract.class)) {
+            for (Contract contract : (Iterable<Contract>) contracts::iterator) {
+                if (inFlight.size() == window) {
+                    written += writeNext(renders, inFlight, zip, names);
+                }
+                inFlight.add(renders.submit(() -> new Rendered(contract, reportCacheService.ensureCached(contract))));
+            }
+            while (!inFlight.isEmpty()) {
+                written += writeNext(renders, inFlight, zip, names);
+            }
+        } catch (IOException | RuntimeException e) {
+            // Client went away or a render failed; don't keep rendering for a dead download
+            logger.warn("Bulk report download aborted after {} reports: {}", written, e.getMessage());
+            inFlight.forEach(f -> f.cancel(true));
+            throw e;
+        }
+        zip.finish();
+        zip.flush();
+        return written;
+    }
+
+    private int writeNext(CompletionService<Rendered> renders, Set<Future<Rendered>> inFlight,
+                          ZipOutputStream zip, Set<String> names) throws IOException {
+        Rendered rendered;
+        try {
+            Future<Rendered> done = renders.take();
+            inFlight.remove(done);
+            rendered = done.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while rendering reports", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Report rendering failed", e.getCause());
+        }
+        Contract contract = rendered.contract();
+        zip.putNextEntry(new ZipEntry(entryName(contract, names)));
+        try {
+            Files.copy(rendered.file(), zip);
+        } catch (NoSuchFileException e) {
+            // Evicted between render and copy (cache smaller than the batch); render straight into the entry
+            pdfReportService.writeContractReport(contract, zip);
+        }
+        zip.closeEntry();
+        return 1;
+    }
+
+    private static String entryName(Contract contract, Set<String> names) {
+        String base = contract.getFilename() != null ? contract.getFilename() : contract.getId();
+        base = base.replaceAll("(?i)\\.pdf$", "").replaceAll("[\\\\/:*?\"<>|]", "_");
+        String name = "Analysis_Report_" + base + ".pdf";
+        // Two uploads of the same file name get the contract id appended
+        return names.add(name) ? name : "Analysis_Report_" + base + "_" + contract.getId() + ".pdf";
+    }
+
+    private record Rendered(Contract contract, Path file) {
+    }
+}
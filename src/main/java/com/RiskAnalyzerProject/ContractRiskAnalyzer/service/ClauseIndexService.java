@@ -0,0 +1,154 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.service;
+
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.exception.ResourceNotFound;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.model.ClauseIndex;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.repository.ClauseIndexRepository;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.util.ContractTextSplitter;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.util.TextTokenizer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Segments contracts into clauses at upload time and ranks them against chat questions (BM25),
+ * so chat only sends the clauses that matter instead of the first N characters of the contract.
+ */
+@Service
+public class ClauseIndexService {
+
+    // Standard BM25 parameters
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    @Autowired
+    private ClauseIndexRepository clauseIndexRepository;
+
+    @Autowired
+    private ContractTextService contractTextService;
+
+    @Value("${app.chat.top-k-clauses:6}")
+    private int topK;
+
+    @Value("${app.chat.max-clause-chars:1500}")
+    private int maxClauseChars;
+
+    @Value("${app.chat.max-context-chars:8000}")
+    private int maxContextChars;
+
+    public ClauseIndex build(String contractId, String text) {
+        ClauseIndex index = new ClauseIndex();
+        index.setId(contractId);
+
+        long totalLength = 0;
+        int clauseNo = 0;
+        for (String section : ContractTextSplitter.splitSections(text)) {
+            // Pieces of an oversized section all carry the section's number
+            String label = ContractTextSplitter.headingLabel(section);
+            List<String> pieces = section.length() > maxClauseChars
+                    ? ContractTextSplitter.splitOversized(section, maxClauseChars) : List.of(section);
+            for (String piece : pieces) {
+                List<String> terms = TextTokenizer.tokenize(piece);
+                ClauseIndex.Clause clause = new ClauseIndex.Clause();
+                clause.setLabel(label != null ? label : "#" + (clauseNo + 1));
+                clause.setText(piece);
+                clause.setLength(terms.size());
+                index.getClauses().add(clause);
+                totalLength += terms.size();
+
+                Map<String, Integer> tf = new HashMap<>();
+                terms.forEach(t -> tf.merge(t, 1, Integer::sum));
+                final int current = clauseNo++;
+                tf.forEach((term, count) -> {
+                    ClauseIndex.Posting posting = new ClauseIndex.Posting();
+                    posting.setClause(current);
+                    posting.setTf(count);
+                    index.getPostings().computeIfAbsent(term, k -> new ArrayList<>()).add(posting);
+                });
+            }
+        }
+        int clauseCount = index.getClauses().size();
+        index.setAvgClauseLength(clauseCount == 0 ? 0 : (double) totalLength / clauseCount);
+        return clauseIndexRepository.save(index);
+    }
+
+    public void delete(String contractId) {
+        clauseIndexRepository.deleteById(contractId);
+    }
+
+    // Top-k clauses for the question, in document order, formatted for the chat prompt
+    public String relevantClauses(String contractId, String question) {
+        ClauseIndex index = clauseIndexRepository.findById(contractId)
+                .orElseGet(() -> buildFromContract(contractId));
+        List<ClauseIndex.Clause> clauses = index.getClauses();
+        if (clauses.isEmpty()) {
+            return "";
+        }
+
+        double[] scores = new double[clauses.size()];
+        int n = clauses.size();
+        double avgLength = index.getAvgClauseLength() > 0 ? index.getAvgClauseLength() : 1;
+        Set<String> queryTerms = new LinkedHashSet<>(TextTokenizer.tokenize(question));
+        for (String term : queryTerms) {
+            List<ClauseIndex.Posting> postings = index.getPostings().get(term);
+            if (postings == null) {
+                continue;
+            }
+            double idf = Math.log(1 + (n - postings.size() + 0.5) / (postings.size() + 0.5));
+            for (ClauseIndex.Posting p : postings) {
+                double norm = K1 * (1 - B + B * clauses.get(p.getClause()).getLength() / avgLength);
+                scores[p.getClause()] += idf * (p.getTf() * (K1 + 1)) / (p.getTf() + norm);
+            }
+        }
+
+        List<Integer> ranked = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (scores[i] > 0) {
+                ranked.add(i);
+            }
+        }
+        ranked.sort((a, b) -> Double.compare(scores[b], scores[a]));
+        if (ranked.isEmpty()) {
+            // Nothing matched (e.g. "summarize this"): fall back to the opening clauses
+            for (int i = 0; i < Math.min(topK, n); i++) {
+                ranked.add(i);
+            }
+        }
+
+        // Pick by rank within the context budget, then present in document order
+        List<Integer> selected = new ArrayList<>();
+        int budget = maxContextChars;
+        for (int i : ranked) {
+            if (selected.size() == topK) {
+                break;
+            }
+            int size = clauses.get(i).getText().length();
+            if (size > budget && !selected.isEmpty()) {
+                continue;
+            }
+            selected.add(i);
+            budget -= size;
+        }
+        selected.sort(Integer::compare);
+        StringBuilder context = new StringBuilder();
+        for (int i : selected) {
+            ClauseIndex.Clause clause = clauses.get(i);
+            context.append("[Clause ").append(clause.getLabel()).append("]\n")
+                    .append(clause.getText()).append("\n\n");
+        }
+        return context.toString().trim();
+    }
+
+    // Contracts uploaded before the index existed get one on first chat
+    private ClauseIndex buildFromContract(String contractId) {
+        String text = contractTextService.find(contractId)
+                .orElseThrow(() -> new ResourceNotFound("Contract not found"));
+        return build(contractId, text);
+    }
+}
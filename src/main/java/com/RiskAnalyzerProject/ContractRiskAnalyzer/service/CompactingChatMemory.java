@@ -0,0 +1,217 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.service;
+
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.model.ChatConversation;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.repository.ChatConversationRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Chat memory that loads one bounded document per turn. When the message window overflows,
+ * the oldest turns are folded into a persisted rolling summary in the background, so per-turn
+ * cost and prompt size stay flat however long the conversation runs.
+ */
+@Component
+public class CompactingChatMemory implements ChatMemory {
+
+    private static final Logger logger = LoggerFactory.getLogger(CompactingChatMemory.class);
+    private static final int MAX_SAVE_ATTEMPTS = 3;
+
+    private final ChatConversationRepository conversationRepository;
+    private final ObjectProvider<ChatMemoryRepository> legacyRepository;
+    private final ChatClient summarizer;
+    private final LlmGateway llmGateway;
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> new Thread(r, "chat-memory-compactor"));
+    private final Set<String> pendingCompactions = ConcurrentHashMap.newKeySet();
+
+    // Messages kept verbatim; older ones live on only in the summary
+    @Value("${app.chat.memory.window-messages:20}")
+    private int windowMessages;
+
+    @Value("${app.chat.memory.summary-max-words:300}")
+    private int summaryMaxWords;
+
+    public CompactingChatMemory(ChatConversationRepository conversationRepository,
+                                ObjectProvider<ChatMemoryRepository> legacyRepository,
+                                ChatModel chatModel,
+                                LlmGateway llmGateway) {
+        this.conversationRepository = conversationRepository;
+        this.legacyRepository = legacyRepository;
+        this.llmGateway = llmGateway;
+        this.summarizer = ChatClient.builder(chatModel).build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        compactor.shutdown();
+    }
+
+    @Override
+    public List<Message> get(String conversationId) {
+        return conversationRepository.findById(conversationId)
+                .map(this::toMessages)
+                .orElseGet(() -> importLegacy(conversationId));
+    }
+
+    @Override
+    public void add(String conversationId, List<Message> messages) {
+        for (int attempt = 1; ; attempt++) {
+            ChatConversation conversation = conversationRepository.findById(conversationId)
+                    .orElseGet(() -> newConversation(conversationId));
+            messages.forEach(m -> conversation.getMessages().add(toStored(m)));
+            conversation.setTotalMessages(conversation.getTotalMessages() + messages.size());
+
+            // Safety net if summarization keeps failing: never let the document grow past twice the window
+            List<ChatConversation.StoredMessage> stored = conversation.getMessages();
+            if (stored.size() > windowMessages * 2) {
+                conversation.setMessages(new ArrayList<>(stored.subList(stored.size() - windowMessages * 2, stored.size())));
+            }
+            conversation.setUpdatedAt(Instant.now());
+            try {
+                conversationRepository.save(conversation);
+                if (conversation.getMessages().size() > windowMessages) {
+                    scheduleCompaction(conversationId);
+                }
+                return;
+            } catch (OptimisticLockingFailureException | DuplicateKeyException e) {
+                // Another turn got in first, or started the same conversation at once; reload and go again
+                if (attempt == MAX_SAVE_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void clear(String conversationId) {
+        conversationRepository.deleteById(conversationId);
+    }
+
+    private void scheduleCompaction(String conversationId) {
+        if (pendingCompactions.add(conversationId)) {
+            compactor.execute(() -> {
+                pendingCompactions.remove(conversationId);
+                compact(conversationId);
+            });
+        }
+    }
+
+    // Folds the oldest half of the window into the summary in one LLM call
+    private void compact(String conversationId) {
+        try {
+            ChatConversation conversation = conversationRepository.findById(conversationId).orElse(null);
+            if (conversation == null || conversation.getMessages().size() <= windowMessages) {
+                return;
+            }
+            List<ChatConversation.StoredMessage> stored = conversation.getMessages();
+            int keep = windowMessages / 2;
+            List<ChatConversation.StoredMessage> fold = stored.subList(0, stored.size() - keep);
+
+            conversation.setSummary(summarize(conversation.getSummary(), fold));
+            conversation.setMessages(new ArrayList<>(stored.subList(stored.size() - keep, stored.size())));
+            conversation.setUpdatedAt(Instant.now());
+            conversationRepository.save(conversation);
+        } catch (OptimisticLockingFailureException e) {
+            // A new turn landed meanwhile; it will schedule another pass
+            logger.debug("Chat memory compaction of {} raced with a new turn", conversationId);
+        } catch (RuntimeException e) {
+            logger.warn("Chat memory compaction of {} failed: {}", conversationId, e.getMessage());
+        }
+    }
+
+    private String summarize(String previousSummary, List<ChatConversation.StoredMessage> messages) {
+        StringBuilder transcript = new StringBuilder();
+        for (ChatConversation.StoredMessage m : messages) {
+            transcript.append(m.getRole()).append(": ").append(m.getText()).append("\n");
+        }
+        String prompt = """
+                You maintain the running summary of a conversation between a user and a legal contract assistant.
+                Merge the new messages into the existing summary. Keep facts, clause references, the user's goals,
+                decisions and open questions. Drop pleasantries. Write at most %d words of plain text.
+
+                EXISTING SUMMARY:
+                %s
+
+                NEW MESSAGES:
+                %s
+                """.formatted(summaryMaxWords, previousSummary == null ? "(none)" : previousSummary, transcript);
+        return llmGateway.call(() -> summarizer.prompt().user(prompt).call().content());
+    }
+
+    // Conversations started before this store existed live in the Spring AI Mongo repository
+    private List<Message> importLegacy(String conversationId) {
+        ChatMemoryRepository legacy = legacyRepository.getIfAvailable();
+        if (legacy == null) {
+            return List.of();
+        }
+        try {
+            List<Message> history = legacy.findByConversationId(conversationId);
+            if (history.isEmpty()) {
+                return List.of();
+            }
+            List<Message> tail = history.subList(Math.max(0, history.size() - windowMessages), history.size());
+            ChatConversation conversation = newConversation(conversationId);
+            tail.forEach(m -> conversation.getMessages().add(toStored(m)));
+            conversation.setTotalMessages(history.size());
+            conversationRepository.save(conversation);
+            return new ArrayList<>(tail);
+        } catch (DuplicateKeyException e) {
+            // A concurrent request imported it first
+            return conversationRepository.findById(conversationId).map(this::toMessages).orElse(List.of());
+        } catch (RuntimeException e) {
+            logger.warn("Could not import legacy chat history for {}: {}", conversationId, e.getMessage());
+            return List.of();
+        }
+    }
+
+    private ChatConversation newConversation(String conversationId) {
+        ChatConversation conversation = new ChatConversation();
+        conversation.setId(conversationId);
+        return conversation;
+    }
+
+    private List<Message> toMessages(ChatConversation conversation) {
+        List<Message> messages = new ArrayList<>();
+        if (conversation.getSummary() != null && !conversation.getSummary().isBlank()) {
+            messages.add(new SystemMessage("Summary of the earlier conversation:\n" + conversation.getSummary()));
+        }
+        for (ChatConversation.StoredMessage m : conversation.getMessages()) {
+            messages.add(switch (m.getRole()) {
+                case "ASSISTANT" -> new AssistantMessage(m.getText());
+                case "SYSTEM" -> new SystemMessage(m.getText());
+                default -> new UserMessage(m.getText());
+            });
+        }
+        return messages;
+    }
+
+    private ChatConversation.StoredMessage toStored(Message message) {
+        ChatConversation.StoredMessage stored = new ChatConversation.StoredMessage();
+        MessageType type = message.getMessageType();
+        stored.setRole(type == MessageType.ASSISTANT ? "ASSISTANT" : type == MessageType.SYSTEM ? "SYSTEM" : "USER");
+        stored.setText(message.getText());
+        return stored;
+    }
+}
@@ -0,0 +1,152 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.service;
+
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.dto.ContractFilter;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.exception.AppException;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.model.ContractText;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.repository.ContractTextRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Admin export of contracts and analyses as NDJSON (one JSON object per line), written straight
+ * from a Mongo cursor to the response so memory stays flat however many contracts there are.
+ */
+@Service
+public class ContractExportService {
+
+    // Export field -> contracts document field ("text" comes from contract_texts)
+    private static final Map<String, String> FIELDS = Map.ofEntries(
+            Map.entry("id", "_id"),
+            Map.entry("ownerUsername", "ownerUsername"),
+            Map.entry("filename", "filename"),
+            Map.entry("uploadedAt", "uploadedAt"),
+            Map.entry("jurisdiction", "jurisdiction"),
+            Map.entry("contractType", "contractType"),
+            Map.entry("riskLevel", "riskLevel"),
+            Map.entry("riskScore", "riskScore"),
+            Map.entry("fileSha256", "fileSha256"),
+            Map.entry("textSha256", "textSha256"),
+            Map.entry("analysis", "analysisJson"),
+            Map.entry("text", "text"));
+
+    private static final List<String> DEFAULT_FIELDS = List.of("id", "ownerUsername", "filename", "uploadedAt",
+            "jurisdiction", "contractType", "riskLevel", "riskScore", "analysis");
+
+    // Texts are fetched for this many contracts at a time instead of one query per contract
+    private static final int TEXT_BATCH_SIZE = 100;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ContractTextRepository contractTextRepository;
+
+    public List<String> resolveFields(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return DEFAULT_FIELDS;
+        }
+        Set<String> selected = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (!FIELDS.containsKey(name)) {
+                throw new AppException("Unknown export field: " + name + ". Allowed: " + FIELDS.keySet());
+            }
+            selected.add(name);
+        }
+        return new ArrayList<>(selected);
+    }
+
+    public long export(ContractFilter filter, List<String> fields, OutputStream out) throws IOException {
+        Query query = new Query();
+        List<Criteria> criteria = ContractService.filterCriteria(filter);
+        if (!criteria.isEmpty()) {
+            query.addCriteria(new Criteria().andOperator(criteria));
+        }
+        query.with(Sort.by(Sort.Direction.ASC, "_id")).cursorBatchSize(500);
+        for (String field : fields) {
+            if (!field.equals("text")) {
+                query.fields().include(FIELDS.get(field));
+            }
+        }
+        boolean withText = fields.contains("text");
+
+        long written = 0;
+        JsonGenerator json = MAPPER.getFactory().createGenerator(out);
+        json.setRootValueSeparator(null);
+        try (Stream<Document> contracts = mongoTemplate.stream(query, Document.class, "contracts")) {
+            List<Document> batch = new ArrayList<>(TEXT_BATCH_SIZE);
+            for (Document doc : (Iterable<Document>) contracts::iterator) {
+                batch.add(doc);
+                if (batch.size() == TEXT_BATCH_SIZE) {
+                    written += writeBatch(json, batch, fields, withText);
+                    batch.clear();
+                }
+            }
+            written += writeBatch(json, batch, fields, withText);
+        }
+        json.flush();
+        return written;
+    }
+
+    private int writeBatch(JsonGenerator json, List<Document> batch, List<String> fields, boolean withText) throws IOException {
+        Map<String, String> texts = new HashMap<>();
+        if (withText && !batch.isEmpty()) {
+            List<String> ids = batch.stream().map(d -> d.get("_id").toString()).toList();
+            for (ContractText text : contractTextRepository.findAllById(ids)) {
+                texts.put(text.getId(), text.getText());
+            }
+        }
+        for (Document doc : batch) {
+            String id = doc.get("_id").toString();
+            json.writeStartObject();
+            for (String field : fields) {
+                json.writeFieldName(field);
+                switch (field) {
+                    case "id" -> json.writeString(id);
+                    case "text" -> json.writeObject(texts.get(id));
+                    case "analysis" -> writeAnalysis(json, doc.getString("analysisJson"));
+                    default -> {
+                        Object value = doc.get(FIELDS.get(field));
+                        json.writeObject(value instanceof Date date ? date.toInstant().toString() : value);
+                    }
+                }
+            }
+            json.writeEndObject();
+            json.writeRaw('\n');
+        }
+        return batch.size();
+    }
+
+    // Embedded as JSON when it parses, so consumers don't have to decode a string; raw text otherwise
+    private void writeAnalysis(JsonGenerator json, String analysisJson) throws IOException {
+        if (analysisJson == null) {
+            json.writeNull();
+            return;
+        }
+        try {
+            json.writeTree(MAPPER.readTree(analysisJson));
+        } catch (IOException e) {
+            json.writeString(analysisJson);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.service;
+
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.dto.SearchResult;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.exception.AppException;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.util.TextTokenizer;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Portfolio search over contract text, analysis and filenames, answered by the Mongo text index
+ * on contract_texts (see MongoIndexConfig) rather than by scanning contracts.
+ */
+@Service
+public class ContractSearchService {
+
+    private static final int SNIPPET_RADIUS = 90;
+    // Text fetched around the first match; room for the snippet plus the word-edge extension
+    private static final int WINDOW_RADIUS = SNIPPET_RADIUS + 40;
+    private static final int MAX_RESULTS = 50;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private UserRoleService userRoleService;
+
+    @Value("${app.search.default-limit:20}")
+    private int defaultLimit;
+
+    public List<SearchResult> search(String username, String q, Integer limit) {
+        if (q == null || q.isBlank()) {
+            throw new AppException("Search query must not be empty");
+        }
+        int n = Math.max(1, Math.min(limit != null ? limit : defaultLimit, MAX_RESULTS));
+        Set<String> prefixes = prefixes(q);
+
+        // The text index is prefixed by owner, so every $text query names one; admin fans out over all owners
+        List<String> owners = userRoleService.isAdmin(username)
+                ? mongoTemplate.findDistinct(new Query(), "ownerUsername", "contract_texts", String.class)
+                : List.of(username);
+        List<Document> docs = new ArrayList<>();
+        for (String owner : owners) {
+            docs.addAll(mongoTemplate.aggregate(searchPipeline(owner, q, prefixes, n), "contract_texts", Document.class)
+                    .getMappedResults());
+        }
+        docs.sort(Comparator.comparingDouble(ContractSearchService::score).reversed());
+
+        Pattern terms = termPattern(prefixes);
+        List<SearchResult> results = new ArrayList<>();
+        for (Document doc : docs.subList(0, Math.min(n, docs.size()))) {
+            String matchedIn = "filename";
+            String snippet = snippet(doc.get("text", Document.class), terms);
+            if (snippet != null) {
+                matchedIn = "text";
+            } else if ((snippet = snippet(doc.get("analysisText", Document.class), terms)) != null) {
+                matchedIn = "analysis";
+            }
+            results.add(new SearchResult(doc.get("_id").toString(), doc.getString("filename"),
+                    doc.getString("ownerUsername"), score(doc), matchedIn, snippet != null ? snippet : ""));
+        }
+        return results;
+    }
+
+    // Quoted phrases and -exclusions follow Mongo's $text syntax. Only a short window around the
+    // first match of each field leaves the server, never the whole contract
+    private static Aggregation searchPipeline(String owner, String q, Set<String> prefixes, int limit) {
+        return Aggregation.newAggregation(
+                Aggregation.stage(new Document("$match", new Document("ownerUsername", owner)
+                        .append("$text", new Document("$search", q)))),
+                Aggregation.stage(new Document("$sort", new Document("score", new Document("$meta", "textScore")))),
+                Aggregation.limit(limit),
+                Aggregation.stage(new Document("$project", new Document("ownerUsername", 1)
+                        .append("filename", 1)
+                        .append("score", new Document("$meta", "textScore"))
+                        .append("text", window("$text", prefixes))
+                        .append("analysisText", window("$analysisText", prefixes)))));
+    }
+
+    // {window, from, length} around the earliest prefix hit, or null when none of the prefixes occur
+    private static Document window(String field, Set<String> prefixes) {
+        List<Document> hits = prefixes.stream()
+                .map(prefix -> new Document("$indexOfCP", List.of("$$lower", prefix)))
+                .toList();
+        Document from = new Document("$max", List.of(0, new Document("$subtract", List.of("$$at", WINDOW_RADIUS))));
+        Document found = new Document("window", new Document("$substrCP", List.of("$$s", from, 2 * WINDOW_RADIUS)))
+                .append("from", from)
+                .append("length", new Document("$strLenCP", "$$s"));
+        Document at = new Document("$min", new Document("$filter", new Document("input", hits)
+                .append("cond", new Document("$gte", List.of("$$this", 0)))));
+        return let("s", new Document("$ifNull", List.of(field, "")),
+                let("lower", new Document("$toLower", "$$s"),
+                        let("at", at,
+                                new Document("$cond", Arrays.asList(new Document("$eq", Arrays.asList("$$at", null)), null, found)))));
+    }
+
+    private static Document let(String name, Object value, Object in) {
+        return new Document("$let", new Document("vars", new Document(name, value)).append("in", in));
+    }
+
+    private static double score(Document doc) {
+        Number score = (Number) doc.get("score");
+        return score != null ? score.doubleValue() : 0;
+    }
+
+    // Stem-ish prefixes of the query words, so "renewals" finds "renewal" and "renewed"
+    private static Set<String> prefixes(String q) {
+        Set<String> prefixes = new LinkedHashSet<>();
+        for (String term : TextTokenizer.tokenize(q)) {
+            prefixes.add(term.length() > 5 ? term.substring(0, term.length() - 2) : term);
+        }
+        return prefixes;
+    }
+
+    private static Pattern termPattern(Set<String> prefixes) {
+        if (prefixes.isEmpty()) {
+            return null;
+        }
+        String alternatives = prefixes.stream().map(Pattern::quote).collect(Collectors.joining("|"));
+        return Pattern.compile("\\b(?:" + alternatives + ")", Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+    }
+
+    private static String snippet(Document window, Pattern terms) {
+        if (window == null || terms == null) {
+            return null;
+        }
+        String text = window.getString("window");
+        int offset = window.get("from", Number.class).intValue();
+        int length = window.get("length", Number.class).intValue();
+        Matcher m = terms.matcher(text);
+        if (!m.find()) {
+            return null;
+        }
+        int start = Math.max(0, m.start() - SNIPPET_RADIUS);
+        int end = Math.min(text.length(), m.end() + SNIPPET_RADIUS);
+        // Don't cut words in half at either edge
+        while (start > 0 && !Character.isWhitespace(text.charAt(start - 1)) && m.start() - start < SNIPPET_RADIUS + 20) {
+            start--;
+        }
+        while (end < text.length() && !Character.isWhitespace(text.charAt(end)) && end - m.end() < SNIPPET_RADIUS + 20) {
+            end++;
+        }
+        String snippet = text.substring(start, end).replaceAll("\\s+", " ").trim();
+        return (offset + start > 0 ? "…" : "") + snippet + (offset + end < length ? "…" : "");
+    }
+}
@@ -1,21 +1,40 @@
 package com.RiskAnalyzerProject.ContractRiskAnalyzer.service;
 
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.dto.ContractFilter;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.dto.ContractPage;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.dto.ContractSummary;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.exception.AppException;
 import com.RiskAnalyzerProject.ContractRiskAnalyzer.exception.ResourceNotFound;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.model.AnalysisJob;
 import com.RiskAnalyzerProject.ContractRiskAnalyzer.model.Contract;
-import com.RiskAnalyzerProject.ContractRiskAnalyzer.model.User;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.model.ContractAnalysis;
 import com.RiskAnalyzerProject.ContractRiskAnalyzer.repository.ContractRepository;
 
 import ch.qos.logback.classic.Logger;
 
-import com.RiskAnalyzerProject.ContractRiskAnalyzer.repository.UserRepository;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.util.ContentHash;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.bson.types.ObjectId;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Flux;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,7 +47,7 @@ public class ContractService {
     private ContractRepository contractRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private UserRoleService userRoleService;
 
     @Autowired
     private PdfService pdfService;
@@ -39,63 +58,256 @@ public class ContractService {
     @Autowired
     private RateLimitingService rateLimitingService;
 
+    @Autowired
+    private ClauseIndexService clauseIndexService;
+
+    @Autowired
+    private ContractTextService contractTextService;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private RiskAnalyticsService riskAnalyticsService;
+
+    @Autowired
+    private ObservationRegistry observationRegistry;
+
+    @Autowired
+    private ReportCacheService reportCacheService;
+
+    private static final int MAX_PAGE_SIZE = 200;
+
     public Contract processAndSaveContract(MultipartFile file,String username, String jurisdiction, String contractType) throws IOException {
+        try (SpooledPdf spooled = pdfService.spool(file)) {
+            // Only counts against the quota once the file is readable
+            checkUploadQuota(username);
+            return analyzeAndSave(spooled, file.getOriginalFilename(), username, jurisdiction, contractType, AnalysisProgress.NONE);
+        }
+    }
+
+    public void checkUploadQuota(String username) {
         if (!rateLimitingService.tryConsume(username)) {
             // Throw existing AppException (returns 400 Bad Request)
             throw new com.RiskAnalyzerProject.ContractRiskAnalyzer.exception.AppException(
                     "Upload limit exceeded! Free accounts are limited to 2 analysis requests per hour."
             );
         }
+    }
+
+    public void refundUploadQuota(String username) {
+        rateLimitingService.refund(username);
+    }
+
+    // The extract -> analyze -> save pipeline, shared by the synchronous upload and background jobs.
+    // Observed as one span (contract.analysis) with a child span and timer per stage.
+    public Contract analyzeAndSave(SpooledPdf spooled, String filename, String username, String jurisdiction,
+                                   String contractType, AnalysisProgress progress) {
+        Observation observation = Observation.createNotStarted("contract.analysis", observationRegistry)
+                .contextualName("analyze contract")
+                .lowCardinalityKeyValue("reuse", "none");
+        return observation.observe(() -> runPipeline(observation, spooled, filename, username, jurisdiction, contractType, progress));
+    }
+
+    private Contract runPipeline(Observation observation, SpooledPdf spooled, String filename, String username,
+                                 String jurisdiction, String contractType, AnalysisProgress progress) {
         try {
-            String text = pdfService.Text(file);
-            String analysis = aiAnalysis.AnalysisContract(text, jurisdiction , contractType);
+            String text = null;
+            ContractAnalysis analysis = null;
+            String textHash = null;
+
+            // 1. Same bytes already analyzed under this jurisdiction/type: skip extraction, OCR and the LLM
+            Optional<Contract> sameFile = contractRepository
+                    .findFirstByFileSha256AndJurisdictionAndContractType(spooled.getSha256(), jurisdiction, contractType);
+            if (sameFile.isPresent()) {
+                // Without the earlier text the copy would be saved unsearchable and unindexed, so extract it again
+                text = contractTextService.find(sameFile.get().getId()).orElse(null);
+                if (text != null) {
+                    logger.info("Reusing analysis of contract {} (identical upload)", sameFile.get().getId());
+                    observation.lowCardinalityKeyValue("reuse", "file");
+                    textHash = sameFile.get().getTextSha256();
+                    analysis = sameFile.get().resolvedAnalysis();
+                } else {
+                    logger.warn("Text of contract {} is missing, extracting the identical upload again", sameFile.get().getId());
+                }
+            }
+            if (text == null) {
+                text = stage("extract", () -> pdfService.Text(spooled.getPath(), progress));
+                textHash = ContentHash.textFingerprint(text);
+
+                // 2. Different bytes, same text (re-exported or re-scanned copy): skip only the LLM
+                Optional<Contract> sameText = contractRepository
+                        .findFirstByTextSha256AndJurisdictionAndContractType(textHash, jurisdiction, contractType);
+                if (sameText.isPresent()) {
+                    logger.info("Reusing analysis of contract {} (identical text)", sameText.get().getId());
+                    observation.lowCardinalityKeyValue("reuse", "text");
+                    analysis = sameText.get().resolvedAnalysis();
+                }
+            }
+            if (analysis == null) {
+                progress.update(AnalysisJob.Status.ANALYZING);
+                String extracted = text;
+                analysis = stage("analyze", () -> aiAnalysis.AnalysisContract(extracted, jurisdiction, contractType));
+            }
 
             Contract contract = new Contract();
-            contract.setFilename(file.getOriginalFilename());
-            contract.setRawText(text);
-            contract.setAnalysisJson(analysis);
-            contract.setUploadDate(LocalDateTime.now().toString());
+            contract.setFilename(filename);
+            contract.setAnalysis(analysis);
+            contract.setAnalysisJson(analysis.toJson());
+            contract.setRiskLevel(analysis.getRiskLevel());
+            contract.setRiskScore(analysis.getRiskScore());
+            Instant now = Instant.now();
+            contract.setUploadedAt(now);
+            contract.setUploadDate(LocalDateTime.ofInstant(now, ZoneId.systemDefault()).toString());
             contract.setOwnerUsername(username);
             contract.setJurisdiction(jurisdiction);
             contract.setContractType(contractType);
+            contract.setFileSha256(spooled.getSha256());
+            contract.setTextSha256(textHash);
 
-            return contractRepository.save(contract);
+            progress.update(AnalysisJob.Status.SAVING);
+            String extracted = text;
+            return stage("save", () -> {
+                Contract saved = contractRepository.save(contract);
+                contractTextService.save(saved.getId(), username, filename, extracted, saved.getAnalysisJson());
+                riskAnalyticsService.recordSaved(saved);
+                clauseIndexService.build(saved.getId(), extracted);
+                return saved;
+            });
         } catch (IOException e) {
             throw new RuntimeException("Failed to process file", e);
         }
     }
-    public String chatWithAi(String question , String contractId , String conversationId){
-        String contractText = null;
+
+    // Timer contract.pipeline.stage{stage=...} plus a child span of contract.analysis
+    private <T> T stage(String name, Observation.CheckedCallable<T, IOException> work) throws IOException {
+        return Observation.createNotStarted("contract.pipeline.stage", observationRegistry)
+                .contextualName(name)
+                .lowCardinalityKeyValue("stage", name)
+                .observeChecked(work);
+    }
+    public String chatWithAi(String question , String contractId , String conversationId, String username){
+        return aiAnalysis.chatWithAI(question, loadChatContext(contractId, question, username), conversationId);
+    }
+
+    public Flux<String> streamChatWithAi(String question, String contractId, String conversationId, String username) {
+        return aiAnalysis.streamChatWithAI(question, loadChatContext(contractId, question, username), conversationId);
+    }
+
+    // Only the clauses relevant to this question, not the whole contract; owner or admin only,
+    // the contract id comes straight from the request body
+    private String loadChatContext(String contractId, String question, String username) {
         if (contractId != null && !contractId.isEmpty() && !contractId.equalsIgnoreCase("general")) {
-            Contract contract = contractRepository.findById(contractId)
-                    .orElseThrow(() -> new RuntimeException("Contract not found"));
-            contractText = contract.getExtractedText();
+            getContractById(contractId, username)
+                    .orElseThrow(() -> new ResourceNotFound("Contract not found with id: " + contractId));
+            return clauseIndexService.relevantClauses(contractId, question);
         }
-            return aiAnalysis.chatWithAI(question, contractText, conversationId);
+        return null;
     }
     public Optional<Contract> getContractById(String id, String requestingUser) {
         Optional<Contract> contract = contractRepository.findById(id);
         if (contract.isPresent()) {
-            User user = userRepository.findByUsername(requestingUser).orElse(null);
             Contract c = contract.get();
 
             // Allow if owner OR Admin
-            if (!c.getOwnerUsername().equals(requestingUser) && (user == null || !"ADMIN".equalsIgnoreCase(user.getRole()))) {
+            if (!c.getOwnerUsername().equals(requestingUser) && !userRoleService.isAdmin(requestingUser)) {
                 return Optional.empty();
             }
         }
         return contract;
     }
 
-    public List<Contract> getAllContracts(String username)
+    // Detail view: the contract plus its text, which lives in its own collection
+    public Optional<Contract> getContractWithText(String id, String requestingUser) {
+        Optional<Contract> contract = getContractById(id, requestingUser);
+        contract.ifPresent(c -> c.setRawText(contractTextService.find(id).orElse(null)));
+        return contract;
+    }
+
+    // Keyset pagination, newest first: the cursor is the (uploadedAt, id) of the last item returned,
+    // so every page is an index range scan no matter how deep the user pages
+    public ContractPage getAllContracts(String username, String cursor, int limit, ContractFilter filter)
     {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFound("User not found"));
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        List<Criteria> criteria = filterCriteria(filter);
+        if (!userRoleService.isAdmin(username)) {
+            criteria.add(Criteria.where("ownerUsername").is(username)); // Admin sees everything
+        }
+        if (cursor != null && !cursor.isBlank()) {
+            PageCursor after = PageCursor.decode(cursor);
+            criteria.add(new Criteria().orOperator(
+                    Criteria.where("uploadedAt").lt(after.uploadedAt()),
+                    new Criteria().andOperator(
+                            Criteria.where("uploadedAt").is(after.uploadedAt()),
+                            Criteria.where("_id").lt(new ObjectId(after.id())))));
+        }
+
+        Query query = new Query();
+        if (!criteria.isEmpty()) {
+            query.addCriteria(new Criteria().andOperator(criteria));
+        }
+        query.with(Sort.by(Sort.Direction.DESC, "uploadedAt", "_id")).limit(pageSize + 1);
+
+        List<ContractSummary> items = mongoTemplate.query(Contract.class)
+                .as(ContractSummary.class)
+                .matching(query)
+                .all();
+        String nextCursor = null;
+        if (items.size() > pageSize) {
+            items = new ArrayList<>(items.subList(0, pageSize));
+            ContractSummary last = items.get(pageSize - 1);
+            nextCursor = new PageCursor(last.getUploadedAt(), last.getId()).encode();
+        }
+        return new ContractPage(items, nextCursor);
+    }
+
+    // Shared by the list and the export
+    static List<Criteria> filterCriteria(ContractFilter filter) {
+        List<Criteria> criteria = new ArrayList<>();
+        if (filter.getOwner() != null && !filter.getOwner().isBlank()) {
+            criteria.add(Criteria.where("ownerUsername").is(filter.getOwner()));
+        }
+        if (filter.getRiskLevel() != null && !filter.getRiskLevel().isBlank()) {
+            String level = ContractAnalysis.normalizeLevel(filter.getRiskLevel());
+            criteria.add(Criteria.where("riskLevel").is(level != null ? level : filter.getRiskLevel().trim()));
+        }
+        if (filter.getJurisdiction() != null && !filter.getJurisdiction().isBlank()) {
+            criteria.add(Criteria.where("jurisdiction").is(filter.getJurisdiction()));
+        }
+        if (filter.getFrom() != null || filter.getTo() != null) {
+            Criteria range = Criteria.where("uploadedAt");
+            if (filter.getFrom() != null) {
+                range.gte(filter.getFrom().atStartOfDay(ZoneOffset.UTC).toInstant());
+            }
+            if (filter.getTo() != null) {
+                range.lt(filter.getTo().plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant());
+            }
+            criteria.add(range);
+        }
+        return criteria;
+    }
 
-        if ("ADMIN".equalsIgnoreCase(user.getRole())) {
-            return contractRepository.findAll(); // Admin sees everything
+    record PageCursor(Instant uploadedAt, String id) {
+
+        String encode() {
+            String raw = uploadedAt.toEpochMilli() + ":" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static PageCursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int sep = raw.indexOf(':');
+                String id = raw.substring(sep + 1);
+                if (!ObjectId.isValid(id)) {
+                    throw new IllegalArgumentException("bad id");
+                }
+                return new PageCursor(Instant.ofEpochMilli(Long.parseLong(raw.substring(0, sep))), id);
+            } catch (RuntimeException e) {
+                throw new AppException("Invalid cursor");
+            }
         }
-        return contractRepository.findByOwnerUsername(username); // Normal user logic
     }
 
     // DELETE METHOD
@@ -103,13 +315,14 @@ public class ContractService {
         Contract contract = contractRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFound("Contract not found with id: " + id));
 
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFound("User not found"));
-
         // Allow if owner OR if Admin
-        if (!contract.getOwnerUsername().equals(username) && !"ADMIN".equalsIgnoreCase(user.getRole())) {
+        if (!contract.getOwnerUsername().equals(username) && !userRoleService.isAdmin(username)) {
             throw new AccessDeniedException("You are not authorized to delete this contract");
         }
         contractRepository.deleteById(id);
+        riskAnalyticsService.recordDeleted(contract);
+        contractTextService.delete(id);
+        clauseIndexService.delete(id);
+        reportCacheService.evict(id);
     }
 }
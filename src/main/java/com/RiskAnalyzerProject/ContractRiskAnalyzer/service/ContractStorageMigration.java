@@ -0,0 +1,141 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.service;
+
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.model.ContractAnalysis;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.stream.Stream;
+
+/**
+ * One-off upgrade of contracts saved before text and risk summaries were split out:
+ * moves rawText into contract_texts, stores the parsed analysis, fills in riskLevel/riskScore
+ * and the uploadedAt timestamp.
+ * Safe to run on every start; once everything is migrated the queries match nothing.
+ */
+@Component
+public class ContractStorageMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContractStorageMigration.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ContractTextService contractTextService;
+
+    // Runs before other startup listeners that read contracts (e.g. the risk aggregate rebuild)
+    @Order(0)
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        Query query = Query.query(new Criteria().orOperator(
+                Criteria.where("rawText").exists(true),
+                Criteria.where("riskLevel").exists(false),
+                Criteria.where("analysis").exists(false)));
+        query.fields().include("rawText", "analysisJson", "ownerUsername", "filename");
+
+        int migrated = 0;
+        try (Stream<Document> legacy = mongoTemplate.stream(query, Document.class, "contracts")) {
+            for (Document doc : (Iterable<Document>) legacy::iterator) {
+                Object id = doc.get("_id");
+                String rawText = doc.getString("rawText");
+                // Copy the text before removing it, so a crash in between loses nothing
+                if (rawText != null) {
+                    contractTextService.save(id.toString(), doc.getString("ownerUsername"), doc.getString("filename"),
+                            rawText, doc.getString("analysisJson"));
+                }
+                // Unparseable legacy output is stored as analysis: null so it isn't retried every start
+                ContractAnalysis analysis = ContractAnalysis.parse(doc.getString("analysisJson"));
+                Update update = new Update()
+                        .unset("rawText")
+                        .set("analysis", analysis != null ? mongoTemplate.getConverter().convertToMongoType(analysis) : null)
+                        .set("riskLevel", analysis != null ? analysis.getRiskLevel() : null)
+                        .set("riskScore", analysis != null ? analysis.getRiskScore() : null);
+                mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(id)), update, "contracts");
+                migrated++;
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Contract storage migration stopped after {} contracts: {}", migrated, e.getMessage());
+            return;
+        }
+        if (migrated > 0) {
+            logger.info("Moved text out of {} legacy contracts", migrated);
+        }
+        backfillUploadedAt();
+        backfillSearchFields();
+    }
+
+    // Texts moved out before search existed lack the owner, filename and analysis copies the text index needs
+    private void backfillSearchFields() {
+        Query query = Query.query(Criteria.where("ownerUsername").exists(false));
+        query.fields().include("_id");
+
+        int backfilled = 0;
+        try (Stream<Document> texts = mongoTemplate.stream(query, Document.class, "contract_texts")) {
+            for (Document doc : (Iterable<Document>) texts::iterator) {
+                Query contractQuery = Query.query(Criteria.where("_id").is(doc.get("_id")));
+                contractQuery.fields().include("ownerUsername", "filename", "analysisJson");
+                Document contract = mongoTemplate.findOne(contractQuery, Document.class, "contracts");
+                if (contract == null) {
+                    continue; // orphan; the contract was deleted
+                }
+                mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(doc.get("_id"))), new Update()
+                        .set("ownerUsername", contract.getString("ownerUsername"))
+                        .set("filename", contract.getString("filename"))
+                        .set("analysisText", ContractTextService.flattenAnalysis(contract.getString("analysisJson"))),
+                        "contract_texts");
+                backfilled++;
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Search field backfill stopped after {} texts: {}", backfilled, e.getMessage());
+            return;
+        }
+        if (backfilled > 0) {
+            logger.info("Backfilled search fields on {} contract texts", backfilled);
+        }
+    }
+
+    // uploadDate used to be the only timestamp, a LocalDateTime string in the server's zone
+    private void backfillUploadedAt() {
+        Query query = Query.query(Criteria.where("uploadedAt").exists(false));
+        query.fields().include("uploadDate");
+
+        int backfilled = 0;
+        try (Stream<Document> legacy = mongoTemplate.stream(query, Document.class, "contracts")) {
+            for (Document doc : (Iterable<Document>) legacy::iterator) {
+                Instant uploadedAt = parseUploadDate(doc.getString("uploadDate"), doc.get("_id"));
+                mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(doc.get("_id"))),
+                        Update.update("uploadedAt", uploadedAt), "contracts");
+                backfilled++;
+            }
+        } catch (RuntimeException e) {
+            logger.warn("uploadedAt backfill stopped after {} contracts: {}", backfilled, e.getMessage());
+            return;
+        }
+        if (backfilled > 0) {
+            logger.info("Backfilled uploadedAt on {} contracts", backfilled);
+        }
+    }
+
+    private Instant parseUploadDate(String uploadDate, Object id) {
+        try {
+            return LocalDateTime.parse(uploadDate).atZone(ZoneId.systemDefault()).toInstant();
+        } catch (RuntimeException e) {
+            // Unparseable or missing: the ObjectId still knows when the document was created
+            return id instanceof ObjectId objectId ? objectId.getDate().toInstant() : Instant.EPOCH;
+        }
+    }
+}
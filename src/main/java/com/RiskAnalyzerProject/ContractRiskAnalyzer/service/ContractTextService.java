@@ -0,0 +1,83 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.service;
+
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.model.ContractText;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.repository.ContractTextRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+
+/**
+ * Reads and writes contract text in contract_texts. Contracts saved before the split still
+ * carry rawText on the contract document until the startup migration moves it.
+ */
+@Service
+public class ContractTextService {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Autowired
+    private ContractTextRepository contractTextRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    public void save(String contractId, String ownerUsername, String filename, String text, String analysisJson) {
+        ContractText contractText = new ContractText();
+        contractText.setId(contractId);
+        contractText.setOwnerUsername(ownerUsername);
+        contractText.setFilename(filename);
+        contractText.setText(text);
+        contractText.setAnalysisText(flattenAnalysis(analysisJson));
+        contractTextRepository.save(contractText);
+    }
+
+    // Every string value in the analysis (summary, risk descriptions, recommendations...), one per line
+    static String flattenAnalysis(String analysisJson) {
+        if (analysisJson == null || analysisJson.isBlank()) {
+            return null;
+        }
+        try {
+            int start = analysisJson.indexOf('{');
+            int end = analysisJson.lastIndexOf('}');
+            JsonNode root = MAPPER.readTree(start >= 0 && end > start ? analysisJson.substring(start, end + 1) : analysisJson);
+            StringBuilder text = new StringBuilder();
+            collectText(root, text);
+            return text.toString().trim();
+        } catch (Exception e) {
+            return analysisJson;
+        }
+    }
+
+    private static void collectText(JsonNode node, StringBuilder text) {
+        if (node.isTextual()) {
+            text.append(node.asText()).append('\n');
+        } else if (node.isContainerNode()) {
+            node.forEach(child -> collectText(child, text));
+        }
+    }
+
+    public Optional<String> find(String contractId) {
+        Optional<String> text = contractTextRepository.findById(contractId).map(ContractText::getText);
+        return text.isPresent() ? text : findLegacy(contractId);
+    }
+
+    public void delete(String contractId) {
+        contractTextRepository.deleteById(contractId);
+    }
+
+    private Optional<String> findLegacy(String contractId) {
+        Object id = ObjectId.isValid(contractId) ? new ObjectId(contractId) : contractId;
+        Query query = Query.query(Criteria.where("_id").is(id));
+        query.fields().include("rawText");
+        Document legacy = mongoTemplate.findOne(query, Document.class, "contracts");
+        return Optional.ofNullable(legacy).map(d -> d.getString("rawText"));
+    }
+}
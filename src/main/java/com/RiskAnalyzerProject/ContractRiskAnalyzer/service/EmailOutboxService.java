@@ -0,0 +1,243 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.service;
+
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.exception.AppException;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.exception.ResourceNotFound;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.model.OutboxEmail;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sends what EmailService puts in the email_outbox. Messages are claimed with findAndModify (so
+ * several nodes can dispatch without sending twice), sent in batches over one SMTP connection,
+ * and retried with exponential backoff until they succeed, expire or run out of attempts.
+ */
+@Service
+public class EmailOutboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailOutboxService.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private JavaMailSender mailSender;
+
+    @Value("${app.email.sender}")
+    private String SENDER_EMAIL;
+
+    @Value("${app.email.outbox.batch-size:20}")
+    private int batchSize;
+
+    @Value("${app.email.outbox.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${app.email.outbox.backoff-initial-ms:2000}")
+    private long backoffInitialMs;
+
+    @Value("${app.email.outbox.backoff-max-ms:300000}")
+    private long backoffMaxMs;
+
+    // How long a claim lasts; must comfortably exceed one batch's SMTP time
+    @Value("${app.email.outbox.lease-seconds:120}")
+    private long leaseSeconds;
+
+    // One sender thread per node; wake-ups while it's busy are folded into its next pass
+    private final ExecutorService sender = Executors.newSingleThreadExecutor(r -> new Thread(r, "email-outbox"));
+    private final AtomicBoolean wakeUpPending = new AtomicBoolean();
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdown();
+    }
+
+    public void wakeUp() {
+        if (wakeUpPending.compareAndSet(false, true)) {
+            sender.execute(() -> {
+                wakeUpPending.set(false);
+                dispatch();
+            });
+        }
+    }
+
+    // Picks up retries that came due and anything left behind by a node that went down
+    @Scheduled(fixedDelayString = "${app.email.outbox.poll-ms:5000}")
+    public void poll() {
+        wakeUp();
+    }
+
+    private void dispatch() {
+        try {
+            List<OutboxEmail> batch;
+            do {
+                batch = claimBatch();
+                if (!batch.isEmpty()) {
+                    send(batch);
+                }
+            } while (batch.size() == batchSize);
+        } catch (RuntimeException e) {
+            logger.warn("Email outbox dispatch failed: {}", e.getMessage());
+        }
+    }
+
+    private List<OutboxEmail> claimBatch() {
+        Instant now = Instant.now();
+        Query due = Query.query(new Criteria().orOperator(
+                        Criteria.where("status").is(OutboxEmail.Status.PENDING).and("nextAttemptAt").lte(now),
+                        Criteria.where("status").is(OutboxEmail.Status.SENDING).and("lockedUntil").lt(now)))
+                .with(Sort.by(Sort.Direction.ASC, "nextAttemptAt"));
+        Update claim = new Update()
+                .set("status", OutboxEmail.Status.SENDING)
+                .set("lockedUntil", now.plusSeconds(leaseSeconds))
+                .inc("attempts", 1);
+
+        List<OutboxEmail> batch = new ArrayList<>();
+        while (batch.size() < batchSize) {
+            OutboxEmail email = mongoTemplate.findAndModify(due, claim, FindAndModifyOptions.options().returnNew(true), OutboxEmail.class);
+            if (email == null) {
+                break;
+            }
+            if (isExpired(email, now)) {
+                markFailed(email, "Expired before it could be sent");
+                // Can never be retried, so the code doesn't need to be kept either
+                mongoTemplate.updateFirst(byId(email.getId()), new Update().unset("body"), OutboxEmail.class);
+                continue;
+            }
+            batch.add(email);
+        }
+        return batch;
+    }
+
+    private void send(List<OutboxEmail> batch) {
+        SimpleMailMessage[] messages = new SimpleMailMessage[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            OutboxEmail email = batch.get(i);
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setFrom(this.SENDER_EMAIL);
+            message.setTo(email.getTo());
+            message.setSubject(email.getSubject());
+            message.setText(email.getBody());
+            messages[i] = message;
+        }
+
+        Map<Object, Exception> failed = Map.of();
+        MailException batchError = null;
+        try {
+            // One connection for the whole batch
+            mailSender.send(messages);
+        } catch (MailSendException e) {
+            // Keyed by the message we passed in; everything else in the batch went out
+            failed = e.getFailedMessages();
+            batchError = e;
+        } catch (MailException e) {
+            batchError = e; // couldn't connect or authenticate; nothing was sent
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            OutboxEmail email = batch.get(i);
+            Exception error = failed.isEmpty() ? batchError : failed.get(messages[i]);
+            if (error == null) {
+                mongoTemplate.updateFirst(byId(email.getId()), new Update()
+                        .set("status", OutboxEmail.Status.SENT)
+                        .set("sentAt", Instant.now())
+                        .unset("body") // OTPs and reset codes shouldn't sit in plaintext until the TTL
+                        .unset("lockedUntil")
+                        .unset("lastError"), OutboxEmail.class);
+            } else {
+                retryLater(email, error.getMessage());
+            }
+        }
+    }
+
+    private void retryLater(OutboxEmail email, String error) {
+        if (email.getAttempts() >= maxAttempts) {
+            markFailed(email, error);
+            return;
+        }
+        long delay = Math.min(backoffMaxMs, backoffInitialMs << Math.min(20, email.getAttempts() - 1));
+        logger.info("Email {} failed (attempt {}), retrying in {} ms: {}", email.getId(), email.getAttempts(), delay, error);
+        mongoTemplate.updateFirst(byId(email.getId()), new Update()
+                .set("status", OutboxEmail.Status.PENDING)
+                .set("nextAttemptAt", Instant.now().plusMillis(delay))
+                .set("lastError", error)
+                .unset("lockedUntil"), OutboxEmail.class);
+    }
+
+    private void markFailed(OutboxEmail email, String error) {
+        logger.warn("Giving up on email {} to {} after {} attempts: {}", email.getId(), email.getTo(), email.getAttempts(), error);
+        mongoTemplate.updateFirst(byId(email.getId()), new Update()
+                .set("status", OutboxEmail.Status.FAILED)
+                .set("lastError", error)
+                .unset("lockedUntil"), OutboxEmail.class);
+    }
+
+    // --- Admin: see what's stuck and push it through again ---
+
+    public List<OutboxEmail> list(String status, int limit) {
+        Query query = new Query().with(Sort.by(Sort.Direction.DESC, "createdAt")).limit(Math.max(1, Math.min(limit, 200)));
+        if (status != null && !status.isBlank()) {
+            try {
+                query.addCriteria(Criteria.where("status").is(OutboxEmail.Status.valueOf(status.trim().toUpperCase())));
+            } catch (IllegalArgumentException e) {
+                throw new AppException("Unknown status: " + status);
+            }
+        }
+        // Bodies contain OTPs; admins don't need to see them
+        query.fields().exclude("body");
+        return mongoTemplate.find(query, OutboxEmail.class);
+    }
+
+    // OTP and reset mails keep their discardAfter: a code that has expired is not worth sending
+    public OutboxEmail retry(String id) {
+        Instant now = Instant.now();
+        OutboxEmail email = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(id).and("status").is(OutboxEmail.Status.FAILED)
+                        .orOperator(Criteria.where("discardAfter").exists(false), Criteria.where("discardAfter").gt(now))),
+                new Update()
+                        .set("status", OutboxEmail.Status.PENDING)
+                        .set("attempts", 0)
+                        .set("nextAttemptAt", now),
+                FindAndModifyOptions.options().returnNew(true),
+                OutboxEmail.class);
+        if (email == null) {
+            OutboxEmail existing = mongoTemplate.findById(id, OutboxEmail.class);
+            if (existing != null && existing.getStatus() == OutboxEmail.Status.FAILED && isExpired(existing, now)) {
+                throw new AppException("This email has expired and can't be resent; the user has to request a new one.");
+            }
+            throw new ResourceNotFound("No failed email with id: " + id);
+        }
+        wakeUp();
+        email.setBody(null);
+        return email;
+    }
+
+    private static boolean isExpired(OutboxEmail email, Instant now) {
+        return email.getDiscardAfter() != null && email.getDiscardAfter().isBefore(now);
+    }
+
+    private static Query byId(String id) {
+        return Query.query(Criteria.where("_id").is(id));
+    }
+}
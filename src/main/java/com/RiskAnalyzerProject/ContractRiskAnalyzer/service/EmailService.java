@@ -1,34 +1,43 @@
 package com.RiskAnalyzerProject.ContractRiskAnalyzer.service;
 
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.model.OutboxEmail;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.beans.factory.annotation.Value;
 
+import java.time.Duration;
+import java.time.Instant;
+
+// Emails go through the outbox: the caller only pays for one insert, EmailOutboxService sends them
 @Service
 public class EmailService {
 
+    // Matches the OTP lifetime in AuthService; after that the mail would only confuse
+    private static final Duration OTP_MAIL_LIFETIME = Duration.ofMinutes(1);
+
     @Autowired
-    private JavaMailSender mailSender;
-    @Value("${spring.mail.username}")
-    private String debugUsername;
+    private MongoTemplate mongoTemplate;
 
-    @Value("${app.email.sender}")
-    private String SENDER_EMAIL;
+    @Autowired
+    private EmailOutboxService emailOutboxService;
 
-    private void sendEmail(String toEmail, String subject, String body) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom(this.SENDER_EMAIL);
-        message.setTo(toEmail);
-        message.setSubject(subject);
-        message.setText(body);
-        mailSender.send(message);
+    private void sendEmail(String toEmail, String subject, String body, Duration lifetime) {
+        Instant now = Instant.now();
+        OutboxEmail email = new OutboxEmail();
+        email.setTo(toEmail);
+        email.setSubject(subject);
+        email.setBody(body);
+        email.setStatus(OutboxEmail.Status.PENDING);
+        email.setNextAttemptAt(now);
+        email.setCreatedAt(now);
+        email.setDiscardAfter(lifetime != null ? now.plus(lifetime) : null);
+        mongoTemplate.insert(email);
+        emailOutboxService.wakeUp(); // don't wait for the next poll
     }
     public void sendOtpEmail(String toEmail, String otp) {
         String subject = "Your Contract Risk Analyzer OTP";
         String body = "Your verification code is: " + otp + "\n\nThis code expires in 1 minute.";
-        sendEmail(toEmail, subject, body);
+        sendEmail(toEmail, subject, body, OTP_MAIL_LIFETIME);
     }
     public void sendResetPasswordEmail(String toEmail, String otp) {
         String subject = ("Reset Your Password - Contract Risk Analyzer");
@@ -36,6 +45,6 @@ public class EmailService {
                         "\n\nYour reset code is: " + otp +
                          "\n\nThis code expires in 1 minutes. " +
                          "If you did not request this, please ignore this email.";
-        sendEmail(toEmail, subject, body);
+        sendEmail(toEmail, subject, body, OTP_MAIL_LIFETIME);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,49 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.service;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Single-node stand-in for {@link MongoBucketStateStore} with the same versioning rules, for running
+ * the shared-bucket code path without a database (tests, local development).
+ */
+public class InMemoryBucketStateStore implements BucketStateStore {
+
+    private record Entry(VersionedState state, Instant expiresAt) {
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    @Override
+    public Optional<VersionedState> read(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null || entry.expiresAt().isBefore(Instant.now())) {
+            return Optional.empty();
+        }
+        return Optional.of(entry.state());
+    }
+
+    @Override
+    public boolean compareAndSwap(String key, long expectedVersion, byte[] state, Instant expiresAt) {
+        boolean[] swapped = {false};
+        Instant now = Instant.now();
+        entries.compute(key, (k, current) -> {
+            // An expired entry is gone as far as read() is concerned, so it has to be replaceable as version 0
+            boolean live = current != null && !current.expiresAt().isBefore(now);
+            long currentVersion = live ? current.state().version() : 0;
+            if (currentVersion != expectedVersion) {
+                return current;
+            }
+            swapped[0] = true;
+            return new Entry(new VersionedState(state, expectedVersion + 1), expiresAt);
+        });
+        return swapped[0];
+    }
+
+    @Override
+    public void delete(String key) {
+        entries.remove(key);
+    }
+}
@@ -0,0 +1,241 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.service;
+
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.exception.AppException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.retry.NonTransientAiException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Every LLM call goes through here. Identical in-flight requests share one call, a fair
+ * semaphore caps concurrent calls node-wide, and provider throttling (429) pauses all
+ * callers with a growing backoff instead of letting each one hammer the provider.
+ */
+@Component
+public class LlmGateway implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(LlmGateway.class);
+
+    @Value("${app.llm.max-concurrent:4}")
+    private int maxConcurrent;
+
+    @Value("${app.llm.acquire-timeout-seconds:60}")
+    private long acquireTimeoutSeconds;
+
+    @Value("${app.llm.max-retries:3}")
+    private int maxRetries;
+
+    @Value("${app.llm.backoff-initial-ms:1000}")
+    private long backoffInitialMs;
+
+    @Value("${app.llm.backoff-max-ms:30000}")
+    private long backoffMaxMs;
+
+    private Semaphore permits;
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    // Shared throttle state: a 429 on one call holds back everyone until pausedUntil
+    private final AtomicLong pausedUntil = new AtomicLong();
+    private final AtomicInteger consecutiveThrottles = new AtomicInteger();
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private volatile Timer waitTimer; // set once metrics are bound
+
+    @PostConstruct
+    public void init() {
+        // Fair, so a burst of chunk calls can't starve a chat request that queued earlier
+        permits = new Semaphore(maxConcurrent, true);
+    }
+
+    // Runs the work once per key; callers arriving while it runs get the same result.
+    // The work itself should use call(); coalescing doesn't take a permit.
+    @SuppressWarnings("unchecked")
+    public <T> T coalesce(String key, Supplier<T> work) {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            coalesced.increment();
+            try {
+                return (T) existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException re ? re : e;
+            }
+        }
+        try {
+            T result = work.get();
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    // One blocking LLM call under the concurrency cap, retried with backoff when throttled.
+    // The permit is only held while a request is in flight, not while sleeping through a backoff.
+    public <T> T call(Supplier<T> request) {
+        for (int attempt = 0; ; attempt++) {
+            awaitPause();
+            acquire();
+            try {
+                T result = request.get();
+                consecutiveThrottles.set(0);
+                return result;
+            } catch (RuntimeException e) {
+                if (!isThrottled(e)) {
+                    failed.increment();
+                    throw e;
+                }
+                onThrottled();
+                if (attempt >= maxRetries) {
+                    failed.increment();
+                    throw new AppException("The AI provider is rate limiting us. Please try again shortly.");
+                }
+            } finally {
+                release();
+            }
+        }
+    }
+
+    // Streaming call: the permit is held from subscription until the stream terminates or is cancelled.
+    // Waiting for a permit or a throttle pause blocks, so that happens on boundedElastic rather than
+    // on whichever servlet or event-loop thread subscribes.
+    public <T> Flux<T> stream(Supplier<Flux<T>> request) {
+        return Flux.defer(() -> {
+            awaitPause();
+            acquire();
+            AtomicBoolean released = new AtomicBoolean();
+            try {
+                return request.get()
+                        .doOnComplete(() -> consecutiveThrottles.set(0))
+                        .doOnError(e -> {
+                            failed.increment();
+                            if (isThrottled(e)) {
+                                onThrottled();
+                            }
+                        })
+                        .doFinally(signal -> {
+                            if (released.compareAndSet(false, true)) {
+                                release();
+                            }
+                        });
+            } catch (RuntimeException e) {
+                if (released.compareAndSet(false, true)) {
+                    release();
+                }
+                throw e;
+            }
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private void acquire() {
+        long start = System.currentTimeMillis();
+        try {
+            if (!permits.tryAcquire(acquireTimeoutSeconds, TimeUnit.SECONDS)) {
+                rejected.increment();
+                throw new AppException("The AI service is busy. Please try again in a moment.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AppException("Interrupted while waiting for the AI service");
+        }
+        long waited = System.currentTimeMillis() - start;
+        if (waitTimer != null) {
+            waitTimer.record(waited, TimeUnit.MILLISECONDS);
+        }
+        active.incrementAndGet();
+        calls.increment();
+    }
+
+    private void release() {
+        active.decrementAndGet();
+        permits.release();
+    }
+
+    private void awaitPause() {
+        long wait = pausedUntil.get() - System.currentTimeMillis();
+        if (wait <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(wait);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AppException("Interrupted while waiting for the AI service");
+        }
+    }
+
+    // Exponential backoff with jitter, shared by all callers
+    private void onThrottled() {
+        throttled.increment();
+        int streak = consecutiveThrottles.incrementAndGet();
+        long backoff = Math.min(backoffMaxMs, backoffInitialMs << Math.min(streak - 1, 16));
+        backoff += ThreadLocalRandom.current().nextLong(backoff / 4 + 1);
+        long until = System.currentTimeMillis() + backoff;
+        pausedUntil.accumulateAndGet(until, Math::max);
+        logger.warn("LLM provider throttled us ({} in a row), pausing calls for {} ms", streak, backoff);
+    }
+
+    private static boolean isThrottled(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof RestClientResponseException http && http.getStatusCode().value() == 429) {
+                return true;
+            }
+            if (t instanceof WebClientResponseException http && http.getStatusCode().value() == 429) {
+                return true;
+            }
+            // Spring AI's error handler drops the response and keeps only "<status> - <body>"
+            if (t instanceof NonTransientAiException && t.getMessage() != null && t.getMessage().startsWith("429 - ")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Queueing and throttling in front of the provider; per-call latency and token usage come from Spring AI (gen_ai.client.*)
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        waitTimer = Timer.builder("llm.gateway.wait").description("Time spent waiting for an LLM permit")
+                .publishPercentileHistogram().register(registry);
+        Gauge.builder("llm.gateway.active", active, AtomicInteger::get).register(registry);
+        Gauge.builder("llm.gateway.queued", this, g -> g.permits.getQueueLength()).register(registry);
+        Gauge.builder("llm.gateway.paused.ms", pausedUntil, p -> Math.max(0, p.get() - System.currentTimeMillis()))
+                .description("How much longer calls are held back after provider throttling").register(registry);
+        FunctionCounter.builder("llm.gateway.calls", calls, LongAdder::sum).register(registry);
+        FunctionCounter.builder("llm.gateway.coalesced", coalesced, LongAdder::sum).register(registry);
+        FunctionCounter.builder("llm.gateway.throttled", throttled, LongAdder::sum).register(registry);
+        FunctionCounter.builder("llm.gateway.rejected", rejected, LongAdder::sum).register(registry);
+        FunctionCounter.builder("llm.gateway.failed", failed, LongAdder::sum).register(registry);
+    }
+}
@@ -0,0 +1,65 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.service;
+
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.Optional;
+
+/**
+ * Rate-limit buckets in the rate_limit_buckets collection, shared by every node. Each write is a
+ * conditional update on the version it read, so concurrent consumers on different nodes can't both
+ * spend the same token. Idle buckets are removed by the TTL index on expiresAt.
+ */
+public class MongoBucketStateStore implements BucketStateStore {
+
+    public static final String COLLECTION = "rate_limit_buckets";
+
+    private final MongoTemplate mongoTemplate;
+
+    public MongoBucketStateStore(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Optional<VersionedState> read(String key) {
+        Document doc = mongoTemplate.findById(key, Document.class, COLLECTION);
+        if (doc == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new VersionedState(doc.get("state", Binary.class).getData(), doc.getLong("version")));
+    }
+
+    @Override
+    public boolean compareAndSwap(String key, long expectedVersion, byte[] state, Instant expiresAt) {
+        if (expectedVersion == 0) {
+            // First write for this key; the unique _id makes a racing insert fail
+            try {
+                mongoTemplate.insert(new Document("_id", key)
+                        .append("state", new Binary(state))
+                        .append("version", 1L)
+                        .append("expiresAt", Date.from(expiresAt)), COLLECTION);
+                return true;
+            } catch (DuplicateKeyException e) {
+                return false;
+            }
+        }
+        Query query = Query.query(Criteria.where("_id").is(key).and("version").is(expectedVersion));
+        Update update = new Update()
+                .set("state", new Binary(state))
+                .set("expiresAt", Date.from(expiresAt))
+                .inc("version", 1L);
+        return mongoTemplate.updateFirst(query, update, COLLECTION).getModifiedCount() == 1;
+    }
+
+    @Override
+    public void delete(String key) {
+        mongoTemplate.remove(Query.query(Criteria.where("_id").is(key)), COLLECTION);
+    }
+}
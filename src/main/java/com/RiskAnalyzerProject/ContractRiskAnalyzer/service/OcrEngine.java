@@ -0,0 +1,63 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.service;
+
+import com.sun.jna.Pointer;
+import net.sourceforge.tess4j.ITessAPI;
+import net.sourceforge.tess4j.TessAPI1;
+import net.sourceforge.tess4j.util.ImageIOHelper;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A single native Tesseract handle that is initialized once (tessdata + language loaded)
+ * and then reused for many pages. Not thread-safe: only one page at a time per engine,
+ * which is what {@link OcrEnginePool} guarantees.
+ */
+class OcrEngine implements AutoCloseable {
+
+    private final ITessAPI.TessBaseAPI handle;
+
+    OcrEngine(String tessDataPath, String language) throws IOException {
+        this.handle = TessAPI1.TessBaseAPICreate();
+        if (TessAPI1.TessBaseAPIInit3(handle, tessDataPath, language) != 0) {
+            TessAPI1.TessBaseAPIDelete(handle);
+            throw new IOException("Could not initialize Tesseract with tessdata at " + tessDataPath);
+        }
+        TessAPI1.TessBaseAPISetPageSegMode(handle, ITessAPI.TessPageSegMode.PSM_AUTO);
+    }
+
+    // Expects an 8-bit grayscale image (PDFRenderer with ImageType.GRAY). Tesseract checks the
+    // deadline itself; interrupting the Java thread does nothing to a native call.
+    String recognize(BufferedImage image, int deadlineMillis) {
+        ByteBuffer buffer = ImageIOHelper.convertImageData(image);
+        int bitsPerPixel = image.getColorModel().getPixelSize();
+        int bytesPerPixel = bitsPerPixel / 8;
+        int bytesPerLine = (int) Math.ceil(image.getWidth() * bitsPerPixel / 8.0);
+
+        TessAPI1.TessBaseAPISetImage(handle, buffer, image.getWidth(), image.getHeight(), bytesPerPixel, bytesPerLine);
+        ITessAPI.ETEXT_DESC monitor = TessAPI1.TessMonitorCreate();
+        Pointer textPtr = null;
+        try {
+            TessAPI1.TessMonitorSetDeadlineMSecs(monitor, deadlineMillis);
+            if (TessAPI1.TessBaseAPIRecognize(handle, monitor) != 0) {
+                throw new IllegalStateException("Tesseract could not finish the page within " + deadlineMillis + " ms");
+            }
+            textPtr = TessAPI1.TessBaseAPIGetUTF8Text(handle);
+            return textPtr == null ? "" : textPtr.getString(0, "UTF-8");
+        } finally {
+            TessAPI1.TessMonitorDelete(monitor);
+            if (textPtr != null) {
+                TessAPI1.TessDeleteText(textPtr);
+            }
+            // Drop the image and recognition results but keep the loaded language model
+            TessAPI1.TessBaseAPIClear(handle);
+        }
+    }
+
+    @Override
+    public void close() {
+        TessAPI1.TessBaseAPIEnd(handle);
+        TessAPI1.TessBaseAPIDelete(handle);
+    }
+}
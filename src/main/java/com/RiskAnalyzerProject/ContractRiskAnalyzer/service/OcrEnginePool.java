@@ -0,0 +1,283 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pool of pre-initialized Tesseract engines plus the worker threads that drive them.
+ * One engine per worker, so a page never waits for an engine once it has a thread.
+ */
+@Component
+public class OcrEnginePool {
+
+    private static final Logger logger = LoggerFactory.getLogger(OcrEnginePool.class);
+
+    @Value("${app.ocr.pool-size:0}")
+    private int configuredPoolSize; // 0 = one engine per available core
+
+    @Value("${app.ocr.page-timeout-seconds:60}")
+    private long pageTimeoutSeconds;
+
+    @Value("${app.ocr.tessdata-path:}")
+    private String tessDataPath;
+
+    @Value("${app.ocr.language:eng}")
+    private String language;
+
+    private final BlockingQueue<OcrEngine> engines = new LinkedBlockingQueue<>();
+    private final List<OcrEngine> allEngines = new CopyOnWriteArrayList<>();
+
+    private record Running(OcrEngine engine, long startedAt) {
+    }
+
+    // Page -> engine working on it (and since when), so a page that overran can have its engine
+    // written off. Abandoned engines map to whether a replacement was actually added for them.
+    // Both guarded by busy.
+    private final Map<CompletableFuture<String>, Running> busy = new HashMap<>();
+    private final Map<OcrEngine, Boolean> abandoned = new HashMap<>();
+    private ThreadPoolExecutor executor;
+    private ExecutorService callbackExecutor;
+    private int poolSize;
+    private String initError;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Timer pageTimer;
+    private Timer queueTimer;
+    private Timer renderTimer;
+    private Counter failedCounter;
+    private Counter timeoutCounter;
+
+    @PostConstruct
+    public void init() {
+        pageTimer = Timer.builder("ocr.page").description("Tesseract time per page")
+                .publishPercentileHistogram().register(meterRegistry);
+        queueTimer = Timer.builder("ocr.page.queue").description("Time a rendered page waited for an engine")
+                .register(meterRegistry);
+        renderTimer = Timer.builder("ocr.page.render").description("PDF page to image rendering time")
+                .register(meterRegistry);
+        failedCounter = Counter.builder("ocr.pages.failed").register(meterRegistry);
+        timeoutCounter = Counter.builder("ocr.pages.timed.out").register(meterRegistry);
+        poolSize = configuredPoolSize > 0 ? configuredPoolSize : Runtime.getRuntime().availableProcessors();
+        if (tessDataPath == null || tessDataPath.isBlank()) {
+            tessDataPath = System.getProperty("user.dir") + File.separator + "tessdata";
+        }
+
+        // Load the language model once per engine up front instead of once per page
+        try {
+            for (int i = 0; i < poolSize; i++) {
+                OcrEngine engine = new OcrEngine(tessDataPath, language);
+                allEngines.add(engine);
+                engines.add(engine);
+            }
+        } catch (IOException | LinkageError e) {
+            // Keep the app up (text-layer PDFs still work); OCR requests will fail with this message
+            initError = e.getMessage();
+            logger.warn("OCR engines unavailable (tessdata: {}): {}", tessDataPath, initError);
+            allEngines.forEach(OcrEngine::close);
+            allEngines.clear();
+            engines.clear();
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(poolSize * 4),
+                r -> {
+                    Thread t = new Thread(r, "ocr-worker-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        callbackExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "ocr-callback");
+            t.setDaemon(true);
+            return t;
+        });
+        // Pool sizing against the core count: per-page timers above plus these
+        Gauge.builder("ocr.engines.ready", allEngines, List::size).register(meterRegistry);
+        Gauge.builder("ocr.workers.active", executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+        Gauge.builder("ocr.pages.queued", executor, e -> e.getQueue().size()).register(meterRegistry);
+        logger.info("OCR pool started with {} engines (tessdata: {})", allEngines.size(), tessDataPath);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        callbackExecutor.shutdownNow();
+        try {
+            executor.awaitTermination(pageTimeoutSeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        allEngines.forEach(OcrEngine::close);
+    }
+
+    public CompletableFuture<String> submit(int pageIndex, BufferedImage image) throws IOException {
+        if (initError != null) {
+            throw new IOException("OCR processing failed: " + initError);
+        }
+        long queuedAt = System.nanoTime();
+        CompletableFuture<String> result = new CompletableFuture<>();
+        executor.execute(() -> {
+            if (result.isDone()) {
+                return; // cancelled while queued
+            }
+            long startedAt = System.nanoTime();
+            OcrEngine engine;
+            try {
+                engine = engines.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                result.completeExceptionally(e);
+                return;
+            }
+            long engineTakenAt = System.nanoTime();
+            synchronized (busy) {
+                busy.put(result, new Running(engine, engineTakenAt));
+            }
+            String text = null;
+            RuntimeException failure = null;
+            try {
+                text = engine.recognize(image, (int) TimeUnit.SECONDS.toMillis(pageTimeoutSeconds));
+                long ocrMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - engineTakenAt);
+                long queueMillis = TimeUnit.NANOSECONDS.toMillis(startedAt - queuedAt);
+                recordPage(ocrMillis, queueMillis);
+                logger.debug("OCR page {} took {} ms (queued {} ms)", pageIndex + 1, ocrMillis, queueMillis);
+            } catch (RuntimeException e) {
+                failedCounter.increment();
+                failure = e;
+            } finally {
+                // Engine first: whatever runs on completion must not hold it
+                release(result, engine);
+            }
+            if (failure != null) {
+                result.completeExceptionally(failure);
+            } else {
+                result.complete(text);
+            }
+        });
+        return result;
+    }
+
+    // For slow follow-up work on finished pages (progress writes, SSE) so it doesn't occupy an OCR worker
+    public Executor callbackExecutor() {
+        return callbackExecutor;
+    }
+
+    private void release(CompletableFuture<String> page, OcrEngine engine) {
+        Boolean replaced;
+        synchronized (busy) {
+            busy.remove(page);
+            replaced = abandoned.remove(engine);
+        }
+        if (replaced == null) {
+            engines.add(engine);
+            return;
+        }
+        if (!replaced) {
+            // Written off, but no replacement could be made: it's still this slot's engine
+            allEngines.add(engine);
+            engines.add(engine);
+            return;
+        }
+        // Came back after all; its replacement is already in the pool, so retire it and the extra worker
+        engine.close();
+        executor.setCorePoolSize(executor.getCorePoolSize() - 1);
+        executor.setMaximumPoolSize(executor.getMaximumPoolSize() - 1);
+    }
+
+    /**
+     * For a page that may have run past its timeout, counted from when it got an engine (time spent
+     * queued doesn't count). Tesseract's own deadline normally ends the call, but a wedged native call
+     * never returns its engine or its worker thread, so both are replaced here and the pool keeps its
+     * capacity. Returns false, doing nothing, if the page is queued, finished or still within its time.
+     */
+    public boolean abandonIfOverrun(CompletableFuture<String> page) {
+        OcrEngine stuck;
+        synchronized (busy) {
+            Running running = busy.get(page);
+            if (running == null || System.nanoTime() - running.startedAt() < TimeUnit.SECONDS.toNanos(pageTimeoutSeconds)) {
+                return false;
+            }
+            busy.remove(page);
+            stuck = running.engine();
+            abandoned.put(stuck, false);
+        }
+        allEngines.remove(stuck);
+        logger.warn("OCR engine stuck for over {} s; replacing it", pageTimeoutSeconds);
+        OcrEngine replacement;
+        try {
+            replacement = new OcrEngine(tessDataPath, language);
+        } catch (IOException | LinkageError e) {
+            logger.warn("Could not replace stuck OCR engine: {}", e.getMessage());
+            return true;
+        }
+        synchronized (busy) {
+            if (!abandoned.containsKey(stuck)) {
+                // The stuck engine came back while the replacement loaded and is in the pool again
+                replacement.close();
+                return true;
+            }
+            abandoned.put(stuck, true);
+            executor.setMaximumPoolSize(executor.getMaximumPoolSize() + 1);
+            executor.setCorePoolSize(executor.getCorePoolSize() + 1);
+        }
+        allEngines.add(replacement);
+        engines.add(replacement);
+        return true;
+    }
+
+    public long getPageTimeoutSeconds() {
+        return pageTimeoutSeconds;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public void recordRender(long renderMillis) {
+        renderTimer.record(renderMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void recordTimeout() {
+        timeoutCounter.increment();
+    }
+
+    private void recordPage(long ocrMillis, long queueMillis) {
+        pageTimer.record(ocrMillis, TimeUnit.MILLISECONDS);
+        queueTimer.record(queueMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // False when tessdata couldn't be loaded; text-layer PDFs still work
+    public boolean isAvailable() {
+        return initError == null && !allEngines.isEmpty();
+    }
+}
@@ -1,67 +1,311 @@
 package com.RiskAnalyzerProject.ContractRiskAnalyzer.service;
 
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import net.sourceforge.tess4j.ITesseract;
-import net.sourceforge.tess4j.Tesseract;
-import net.sourceforge.tess4j.TesseractException;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.model.AnalysisJob;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.util.ContentHash;
 import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.apache.pdfbox.io.RandomAccessReadBufferedFile;
+import org.apache.pdfbox.io.RandomAccessReadMemoryMappedFile;
 import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.graphics.PDXObject;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
 import org.apache.pdfbox.rendering.ImageType;
 import org.apache.pdfbox.rendering.PDFRenderer;
 import org.apache.pdfbox.text.PDFTextStripper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
-import java.io.File;
 
 @Service
 public class PdfService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PdfService.class);
+
+    @Autowired
+    private OcrEnginePool ocrEnginePool;
+
+    @Autowired
+    private ObservationRegistry observationRegistry;
+
+    @Value("${app.ocr.dpi:150}")
+    private int ocrDpi;
+
+    // Pages with fewer visible characters than this in their text layer are OCR candidates
+    @Value("${app.pdf.min-text-chars-per-page:40}")
+    private int minTextCharsPerPage;
+
+    // How uploads are opened: "file" (buffered random access), "mmap" (memory-mapped) or "memory" (whole file on heap)
+    @Value("${app.pdf.ingestion-mode:file}")
+    private String ingestionMode;
+
+    // Heap PDFBox may use for decoded streams per document before spilling to scratch files
+    @Value("${app.pdf.max-main-memory-bytes:16777216}")
+    private long maxMainMemoryBytes;
+
+    @Value("${app.pdf.spool-dir:${java.io.tmpdir}}")
+    private String spoolDir;
+
     public String Text(MultipartFile file) throws IOException{
-        try (PDDocument document = Loader.loadPDF(file.getBytes())) {
-        PDFTextStripper stripper = new PDFTextStripper();
-        String text =  stripper.getText(document);
-        if(text != null && !text.trim().isEmpty()){
-            return text;
-            }
-            return extractTextUsingOCR(document);
+        try (SpooledPdf spooled = spool(file)) {
+            return Text(spooled.getPath());
+        }
     }
+
+    public String Text(Path pdf) throws IOException {
+        return Text(pdf, AnalysisProgress.NONE);
     }
 
-    private String extractTextUsingOCR(PDDocument document) throws IOException {
-        PDFRenderer pdfRenderer = new PDFRenderer(document);
+    public String Text(Path pdf, AnalysisProgress progress) throws IOException {
+        try (PDDocument document = open(pdf)) {
+            return extractText(document, progress);
+        }
+    }
+
+    // Streams the upload to a temp file instead of pulling it onto the heap with getBytes(),
+    // fingerprinting the bytes on the way through
+    public SpooledPdf spool(MultipartFile file) throws IOException {
+        Path dir = Path.of(spoolDir);
+        Files.createDirectories(dir);
+        Path target = Files.createTempFile(dir, "upload-", ".pdf");
+        MessageDigest digest = ContentHash.newSha256();
+        try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+            long size = Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+            return new SpooledPdf(target, size, ContentHash.hex(digest));
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+    }
+
+    private PDDocument open(Path pdf) throws IOException {
+        if ("memory".equalsIgnoreCase(ingestionMode)) {
+            return Loader.loadPDF(Files.readAllBytes(pdf));
+        }
+        RandomAccessRead source = "mmap".equalsIgnoreCase(ingestionMode)
+                ? new RandomAccessReadMemoryMappedFile(pdf)
+                : new RandomAccessReadBufferedFile(pdf);
+        try {
+            MemoryUsageSetting memory = MemoryUsageSetting.setupMixed(maxMainMemoryBytes).setTempDir(new File(spoolDir));
+            PDDocument document = Loader.loadPDF(source, "", null, null, memory.streamCache);
+            // The default cache keeps decoded images/fonts softly reachable, which on big scans just
+            // means GC churn; pages are visited once so there is nothing to gain from it
+            document.setResourceCache(null);
+            return document;
+        } catch (IOException | RuntimeException e) {
+            source.close();
+            throw e;
+        }
+    }
+
+    // Keeps the text layer wherever it exists and OCRs only the pages that don't have a usable one
+    private String extractText(PDDocument document, AnalysisProgress progress) throws IOException {
+        int pageCount = document.getNumberOfPages();
+        progress.update(AnalysisJob.Status.EXTRACTING, 0, pageCount);
+        String[] layerText = new PageTextStripper(pageCount).extract(document);
+
+        List<Integer> ocrPages = new ArrayList<>();
+        for (int page = 0; page < pageCount; page++) {
+            if (needsOcr(document.getPage(page), layerText[page])) {
+                ocrPages.add(page);
+            }
+        }
+        // No text at all and no image XObjects found (e.g. inline-image scans): fall back to OCR'ing everything
+        if (ocrPages.isEmpty() && Arrays.stream(layerText).allMatch(String::isBlank)) {
+            for (int page = 0; page < pageCount; page++) {
+                ocrPages.add(page);
+            }
+        }
+        logger.info("PDF: {} pages, {} from text layer, {} need OCR", pageCount, pageCount - ocrPages.size(), ocrPages.size());
+
+        Map<Integer, String> ocrText = ocrPages.isEmpty() ? Map.of() : Observation
+                .createNotStarted("contract.pipeline.stage", observationRegistry)
+                .contextualName("ocr")
+                .lowCardinalityKeyValue("stage", "ocr")
+                .observeChecked(() -> extractTextUsingOCR(document, ocrPages, progress));
         StringBuilder out = new StringBuilder();
+        for (int page = 0; page < pageCount; page++) {
+            String layer = layerText[page];
+            String ocr = ocrText.get(page);
+            // A sparse text layer (e.g. a typed name over a scanned signature page) is usually
+            // contained in the OCR output; keep whichever recovered more text
+            out.append(ocr != null && ocr.trim().length() > layer.trim().length() ? ocr : layer);
+        }
+        return out.toString();
+    }
 
-        // Initialize Tesseract
-        ITesseract tesseract = new Tesseract();
+    private boolean needsOcr(PDPage page, String layerText) throws IOException {
+        if (countVisibleChars(layerText) >= minTextCharsPerPage) {
+            return false;
+        }
+        // Low-density page: only worth OCR if there is something drawn on it as an image
+        return hasImages(page.getResources(), 0);
+    }
 
-        String projectPath = System.getProperty("user.dir");
-        String tessDataPath = projectPath + File.separator + "tessdata";
-        System.out.println("OCR: Looking for tessdata at -> " + tessDataPath);
-        tesseract.setDatapath(tessDataPath);
-        // OPTIONAL: Set the path to your tessdata folder if not in default system path
-        // tesseract.setDatapath("C:/Program Files/Tesseract-OCR/tessdata");
+    private static int countVisibleChars(String text) {
+        int count = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (!Character.isWhitespace(text.charAt(i))) {
+                count++;
+            }
+        }
+        return count;
+    }
 
+    private static boolean hasImages(PDResources resources, int depth) throws IOException {
+        if (resources == null || depth > 3) {
+            return false;
+        }
+        for (COSName name : resources.getXObjectNames()) {
+            PDXObject xObject = resources.getXObject(name);
+            if (xObject instanceof PDImageXObject) {
+                return true;
+            }
+            // Scans are sometimes wrapped in a form XObject
+            if (xObject instanceof PDFormXObject form && hasImages(form.getResources(), depth + 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-        tesseract.setLanguage("eng"); // Set language to English
+    private Map<Integer, String> extractTextUsingOCR(PDDocument document, List<Integer> pageIndexes,
+                                                     AnalysisProgress progress) throws IOException {
+        int pageCount = pageIndexes.size();
+        progress.update(AnalysisJob.Status.OCR, 0, pageCount);
+        PDFRenderer pdfRenderer = new PDFRenderer(document);
+        long started = System.currentTimeMillis();
 
+        // PDFBox documents are not thread-safe, so pages are rendered here one by one and only
+        // the OCR itself fans out to the pool. The semaphore caps how many rendered pages sit in memory.
+        Semaphore inFlight = new Semaphore(ocrEnginePool.getPoolSize() * 2);
+        List<CompletableFuture<String>> pages = new ArrayList<>(pageCount);
+        AtomicInteger pagesDone = new AtomicInteger();
         try {
-            // Loop through all pages
-            for (int page = 0; page < document.getNumberOfPages(); page++) {
-                // Render page as an image (300 DPI is good for OCR)
-                BufferedImage bim = pdfRenderer.renderImageWithDPI(page, 150, ImageType.RGB);
-
-                // Perform OCR on the image
-                String result = tesseract.doOCR(bim);
-                out.append(result);
-                bim.flush();
-                bim = null;
+            for (int page : pageIndexes) {
+                // No page has finished for a whole page timeout, so every running page has overrun
+                if (!inFlight.tryAcquire(ocrEnginePool.getPageTimeoutSeconds(), TimeUnit.SECONDS)) {
+                    ocrEnginePool.recordTimeout();
+                    pages.forEach(ocrEnginePool::abandonIfOverrun);
+                    throw new IOException("OCR timed out: no page finished within "
+                            + ocrEnginePool.getPageTimeoutSeconds() + " s");
+                }
+                long renderStart = System.currentTimeMillis();
+                BufferedImage bim;
+                CompletableFuture<String> result;
+                try {
+                    bim = pdfRenderer.renderImageWithDPI(page, ocrDpi, ImageType.GRAY);
+                    ocrEnginePool.recordRender(System.currentTimeMillis() - renderStart);
+                    result = ocrEnginePool.submit(page, bim);
+                } catch (IOException | RuntimeException e) {
+                    inFlight.release();
+                    throw e;
+                }
+                result.whenComplete((text, error) -> inFlight.release());
+                // Pages finish out of order, so report a count rather than the page index.
+                // The update writes to Mongo and SSE, so it runs off the OCR workers.
+                result.whenCompleteAsync((text, error) -> {
+                    if (error == null) {
+                        progress.update(AnalysisJob.Status.OCR, pagesDone.incrementAndGet(), pageCount);
+                    }
+                }, ocrEnginePool.callbackExecutor());
+                pages.add(result);
             }
-        } catch (TesseractException e) {
-            System.err.println("OCR Failed. Checked path: " + tessDataPath);
-            throw new IOException("OCR processing failed", e);
+
+            // Reassemble in page order. Even queued behind every other page, no page should need
+            // longer than one timeout per page in total.
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(ocrEnginePool.getPageTimeoutSeconds() * (pageCount + 1L));
+            Map<Integer, String> out = new HashMap<>();
+            for (int i = 0; i < pageCount; i++) {
+                int page = pageIndexes.get(i);
+                out.put(page, awaitPage(pages.get(i), page, deadline));
+            }
+            logger.info("OCR: {} pages in {} ms on {} engines", pageCount,
+                    System.currentTimeMillis() - started, ocrEnginePool.getPoolSize());
+            return out;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("OCR processing interrupted", e);
+        } finally {
+            // No-op for finished pages; pages still queued are skipped if we bailed out early
+            pages.forEach(f -> f.cancel(true));
         }
+    }
 
-        return out.toString();
+    // The page timeout runs from when the page got an engine; a page still queued behind others keeps waiting
+    private String awaitPage(CompletableFuture<String> future, int page, long deadline) throws IOException, InterruptedException {
+        while (true) {
+            try {
+                return future.get(ocrEnginePool.getPageTimeoutSeconds(), TimeUnit.SECONDS);
+            } catch (TimeoutException e) {
+                // Cancelling the future wouldn't stop the native call or free its engine
+                if (ocrEnginePool.abandonIfOverrun(future) || System.nanoTime() - deadline > 0) {
+                    ocrEnginePool.recordTimeout();
+                    throw new IOException("OCR timed out on page " + (page + 1), e);
+                }
+            } catch (ExecutionException e) {
+                throw new IOException("OCR processing failed on page " + (page + 1), e.getCause());
+            }
+        }
+    }
+
+    // Captures the text layer of every page in a single pass over the document
+    private static final class PageTextStripper extends PDFTextStripper {
+        private final String[] pages;
+        private final StringWriter buffer = new StringWriter();
+
+        PageTextStripper(int pageCount) {
+            this.pages = new String[pageCount];
+            Arrays.fill(pages, "");
+        }
+
+        String[] extract(PDDocument document) throws IOException {
+            writeText(document, buffer);
+            return pages;
+        }
+
+        @Override
+        protected void startPage(PDPage page) throws IOException {
+            buffer.getBuffer().setLength(0);
+            super.startPage(page);
+        }
+
+        @Override
+        protected void endPage(PDPage page) throws IOException {
+            super.endPage(page);
+            // Pages without a content stream never get here and stay ""
+            pages[getCurrentPageNo() - 1] = buffer.toString();
+        }
     }
 }
@@ -1,38 +1,84 @@
 package com.RiskAnalyzerProject.ContractRiskAnalyzer.service;
 
-import com.RiskAnalyzerProject.ContractRiskAnalyzer.model.User;
-import com.RiskAnalyzerProject.ContractRiskAnalyzer.repository.UserRepository;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.config.RateLimitProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
 import io.github.bucket4j.Refill;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.stereotype.Service;
 import io.github.bucket4j.EstimationProbe;
 import java.util.concurrent.TimeUnit;
 
 import java.time.Duration;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Locale;
 
 @Service
 public class RateLimitingService {
 
     @Autowired
-    private UserRepository userRepository;
+    private UserRoleService userRoleService;
 
-    // Cache buckets in memory (Map<Username, Bucket>)
-    private final Map<String, Bucket> cache = new ConcurrentHashMap<>();
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private RateLimitProperties properties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Counter rejections;
+
+    // Shared-state buckets (mongo / memory mode); null in local mode
+    private StoreBackedProxyManager proxyManager;
+
+    // Bounded, idle-evicted. In local mode this holds the buckets themselves; otherwise just
+    // proxies, so evicting one loses nothing
+    private Cache<String, Bucket> cache;
+
+    @PostConstruct
+    public void init() {
+        switch (properties.getMode().toLowerCase(Locale.ROOT)) {
+            case "mongo" -> proxyManager = new StoreBackedProxyManager(new MongoBucketStateStore(mongoTemplate), Duration.ofMinutes(5));
+            case "memory" -> proxyManager = new StoreBackedProxyManager(new InMemoryBucketStateStore(), Duration.ofMinutes(5));
+            case "local" -> { }
+            default -> throw new IllegalStateException("Unknown app.rate-limit.mode: " + properties.getMode());
+        }
+        rejections = Counter.builder("ratelimit.rejections")
+                .description("Uploads refused because the user's bucket was empty")
+                .tag("mode", properties.getMode().toLowerCase(Locale.ROOT))
+                .register(meterRegistry);
+        cache = Caffeine.newBuilder()
+                .maximumSize(properties.getLocalCacheMaxSize())
+                .expireAfterAccess(properties.getLocalIdleTimeout())
+                .build();
+    }
 
     public boolean tryConsume(String username) {
-        Bucket bucket = cache.computeIfAbsent(username, this::createNewBucket);
-        return bucket.tryConsume(1);
+        Bucket bucket = cache.get(username, this::createNewBucket);
+        boolean allowed = bucket.tryConsume(1);
+        if (!allowed) {
+            rejections.increment();
+        }
+        return allowed;
+    }
+    // Gives back a token spent on an upload that never got going (spool or queue failure)
+    public void refund(String username) {
+        cache.get(username, this::createNewBucket).addTokens(1);
     }
     public long getRemainingTokens(String username) {
-        Bucket bucket = cache.computeIfAbsent(username, this::createNewBucket);
+        Bucket bucket = cache.get(username, this::createNewBucket);
         return bucket.getAvailableTokens();
     }
     public long getTimeUntilRefill(String username) {
-        Bucket bucket = cache.computeIfAbsent(username, this::createNewBucket);
+        Bucket bucket = cache.get(username, this::createNewBucket);
         // "Probe" the bucket: Can I consume 1 token?
         // If yes, wait time is 0. If no, it tells us exactly how long to wait.
         EstimationProbe probe = bucket.estimateAbilityToConsume(1);
@@ -40,20 +86,33 @@ public class RateLimitingService {
         return TimeUnit.NANOSECONDS.toMillis(nanos);
     }
     private Bucket createNewBucket(String username) {
-        User user = userRepository.findByUsername(username).orElse(null);
-
-        if (user != null && "ADMIN".equalsIgnoreCase(user.getRole())) {
-            // ADMIN: Virtually unlimited (e.g., 10,000 requests per minute)
-            return Bucket.builder()
-                    .addLimit(Bandwidth.classic(10000, Refill.greedy(10000, Duration.ofMinutes(1))))
-                    .build();
-        } else {
-            // USER: Limited to 2 uploads per 1 hour
-            // Refill.intervally means "refill 2 tokens every 60 minutes"
-            return Bucket.builder()
-                    .addLimit(Bandwidth.classic(2, Refill.intervally(2, Duration.ofHours(1))))
-                    .build();
+        BucketConfiguration configuration = BucketConfiguration.builder()
+                .addLimit(bandwidth(planFor(userRoleService.roleOf(username))))
+                .build();
+        if (proxyManager != null) {
+            return proxyManager.builder().build(username, () -> configuration);
         }
+        return Bucket.builder()
+                .addLimit(configuration.getBandwidths()[0])
+                .build();
+    }
+
+    private RateLimitProperties.Plan planFor(String role) {
+        RateLimitProperties.Plan plan = role != null ? properties.getPlans().get(role.toUpperCase(Locale.ROOT)) : null;
+        if (plan == null) {
+            plan = properties.getPlans().get(properties.getDefaultPlan());
+        }
+        if (plan == null) {
+            throw new IllegalStateException("No rate limit plan for role " + role + " and no default plan");
+        }
+        return plan;
+    }
+
+    private static Bandwidth bandwidth(RateLimitProperties.Plan plan) {
+        Refill refill = plan.isGreedy()
+                ? Refill.greedy(plan.getRefillTokens(), plan.getRefillPeriod())
+                : Refill.intervally(plan.getRefillTokens(), plan.getRefillPeriod());
+        return Bandwidth.classic(plan.getCapacity(), refill);
     }
 
-}
\ No newline at end of file
+}
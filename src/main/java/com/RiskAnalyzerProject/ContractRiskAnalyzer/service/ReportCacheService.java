@@ -0,0 +1,240 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.service;
+
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.model.Contract;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.util.ContentHash;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generated PDF reports kept on disk, keyed by contract id plus a hash of the analysis and the
+ * report layout version. A contract's analysis never changes after it's saved, so a cached report
+ * stays valid until it's evicted (least recently downloaded first once the directory is over its size cap).
+ */
+@Service
+public class ReportCacheService implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportCacheService.class);
+
+    @Autowired
+    private PdfReportService pdfReportService;
+
+    @Value("${app.report.cache-dir:${java.io.tmpdir}/contract-reports}")
+    private String cacheDir;
+
+    @Value("${app.report.cache-max-bytes:268435456}")
+    private long maxBytes;
+
+    private Path dir;
+
+    // file name -> size and last access; rebuilt from the directory on start
+    private final Map<String, Entry> index = new ConcurrentHashMap<>();
+    private final AtomicLong totalBytes = new AtomicLong();
+
+    private static final class Entry {
+        final long size;
+        volatile long lastAccess;
+
+        Entry(long size, long lastAccess) {
+            this.size = size;
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        dir = Paths.get(cacheDir);
+        Files.createDirectories(dir);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".tmp")) {
+                    Files.deleteIfExists(file); // left over from a crash mid-render
+                } else if (name.endsWith(".pdf")) {
+                    long size = Files.size(file);
+                    index.put(name, new Entry(size, Files.getLastModifiedTime(file).toMillis()));
+                    totalBytes.addAndGet(size);
+                }
+            }
+        }
+        evictIfNeeded();
+    }
+
+    // Strong validator: changes whenever the bytes of the report would
+    public String etag(Contract contract) {
+        return "\"" + version(contract) + "\"";
+    }
+
+    public Optional<Path> cached(Contract contract) {
+        String name = fileName(contract);
+        Entry entry = index.get(name);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        Path file = dir.resolve(name);
+        if (!Files.exists(file)) {
+            forget(name);
+            return Optional.empty();
+        }
+        entry.lastAccess = System.currentTimeMillis();
+        return Optional.of(file);
+    }
+
+    /**
+     * Renders the report into {@code out} and, in the same pass, into the cache. Nothing is buffered
+     * in memory; if rendering or the client fails half way the partial file is thrown away.
+     */
+    public void renderTo(Contract contract, OutputStream out) throws IOException {
+        String name = fileName(contract);
+        Path tmp = Files.createTempFile(dir, contract.getId() + "-", ".tmp");
+        boolean complete = false;
+        try {
+            try (OutputStream file = Files.newOutputStream(tmp)) {
+                pdfReportService.writeContractReport(contract, new TeeOutputStream(out, file));
+            }
+            out.flush();
+            complete = true;
+        } finally {
+            if (!complete) {
+                Files.deleteIfExists(tmp);
+            }
+        }
+        store(name, tmp);
+    }
+
+    // For callers that only need the file (bulk export); the path can still be evicted before it's read
+    public Path ensureCached(Contract contract) throws IOException {
+        Optional<Path> hit = cached(contract);
+        if (hit.isPresent()) {
+            return hit.get();
+        }
+        renderTo(contract, OutputStream.nullOutputStream());
+        return dir.resolve(fileName(contract));
+    }
+
+    public void evict(String contractId) {
+        for (String name : new ArrayList<>(index.keySet())) {
+            if (name.startsWith(contractId + "-")) {
+                remove(name);
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("report.cache.files", index, Map::size).register(registry);
+        Gauge.builder("report.cache.bytes", totalBytes, AtomicLong::get).register(registry);
+        Gauge.builder("report.cache.max.bytes", this, c -> c.maxBytes).register(registry);
+    }
+
+    private void store(String name, Path tmp) {
+        try {
+            long size = Files.size(tmp);
+            Files.move(tmp, dir.resolve(name), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Entry previous = index.put(name, new Entry(size, System.currentTimeMillis()));
+            totalBytes.addAndGet(size - (previous != null ? previous.size : 0));
+            evictIfNeeded();
+        } catch (IOException e) {
+            // The response already went out; the next download just renders again
+            logger.warn("Could not cache report {}: {}", name, e.getMessage());
+            try {
+                Files.deleteIfExists(tmp);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private synchronized void evictIfNeeded() {
+        if (totalBytes.get() <= maxBytes) {
+            return;
+        }
+        List<Map.Entry<String, Entry>> byAge = new ArrayList<>(index.entrySet());
+        byAge.sort(Comparator.comparingLong(e -> e.getValue().lastAccess));
+        for (Map.Entry<String, Entry> oldest : byAge) {
+            if (totalBytes.get() <= maxBytes) {
+                break;
+            }
+            remove(oldest.getKey());
+        }
+    }
+
+    private void remove(String name) {
+        forget(name);
+        try {
+            Files.deleteIfExists(dir.resolve(name));
+        } catch (IOException e) {
+            logger.warn("Could not delete cached report {}: {}", name, e.getMessage());
+        }
+    }
+
+    private void forget(String name) {
+        Entry entry = index.remove(name);
+        if (entry != null) {
+            totalBytes.addAndGet(-entry.size);
+        }
+    }
+
+    private String fileName(Contract contract) {
+        return version(contract) + ".pdf";
+    }
+
+    private String version(Contract contract) {
+        String analysis = contract.getAnalysisJson() != null ? contract.getAnalysisJson() : "";
+        return contract.getId() + "-" + ContentHash.sha256Hex(analysis).substring(0, 16)
+                + "-r" + PdfReportService.REPORT_VERSION;
+    }
+
+    // Writes every byte to both streams; closing it closes neither
+    private static final class TeeOutputStream extends FilterOutputStream {
+        private final OutputStream copy;
+
+        TeeOutputStream(OutputStream out, OutputStream copy) {
+            super(out);
+            this.copy = copy;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            copy.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            copy.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+            copy.flush();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
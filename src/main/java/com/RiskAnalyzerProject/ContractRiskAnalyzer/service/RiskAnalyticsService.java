@@ -0,0 +1,391 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.service;
+
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.exception.AppException;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.model.Contract;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.model.ContractAnalysis;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.model.RiskAggregate;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Risk analytics served from risk_aggregates. Each contract save adds +1 to the counters of four
+ * documents (user/global x month/all-time) and each delete subtracts them again, so reads are a single
+ * findById no matter how many contracts exist.
+ */
+@Service
+public class RiskAnalyticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RiskAnalyticsService.class);
+    private static final int TOP_N = 10;
+
+    // First matching category wins; checked against each risk's clause and explanation
+    private static final Map<String, List<String>> CATEGORIES = categories();
+
+    // Missing clauses are free text from the model, so they're counted under a fixed vocabulary;
+    // one counter per phrasing would grow the global document without bound
+    private static final Map<String, List<String>> MISSING_CLAUSES = missingClauseCategories();
+
+    // Bump when the counters change shape; the next start rebuilds every aggregate from the contracts
+    private static final int AGGREGATE_VERSION = 2;
+    private static final String META_ID = "_meta";
+    // Saves and deletes that land while a rebuild is counting, replayed once the recount is written
+    private static final String DELTAS = "risk_aggregate_deltas";
+    private static final Duration REBUILD_LEASE = Duration.ofMinutes(30);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    public void recordSaved(Contract contract) {
+        record(contract, 1);
+    }
+
+    public void recordDeleted(Contract contract) {
+        record(contract, -1);
+    }
+
+    // Analytics are a side view; a failed counter update must not fail the upload or delete
+    private void record(Contract contract, int delta) {
+        try {
+            if (rebuilding()) {
+                mongoTemplate.insert(new Document("contractId", contract.getId())
+                        .append("delta", delta)
+                        .append("ownerUsername", contract.getOwnerUsername())
+                        .append("uploadedAt", contract.getUploadedAt())
+                        .append("jurisdiction", contract.getJurisdiction())
+                        .append("contractType", contract.getContractType())
+                        .append("analysisJson", contract.getAnalysisJson()), DELTAS);
+                return;
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not check for a risk aggregate rebuild: {}", e.getMessage());
+        }
+        apply(contract.getOwnerUsername(), contract.getUploadedAt(), contract.getJurisdiction(),
+                contract.getContractType(), contract.resolvedAnalysis(), delta);
+    }
+
+    private boolean rebuilding() {
+        return mongoTemplate.exists(Query.query(Criteria.where("_id").is(META_ID).and("claimedUntil").gt(Instant.now())),
+                RiskAggregate.class);
+    }
+
+    private void apply(String owner, Instant uploadedAt, String jurisdiction, String contractType, ContractAnalysis analysis, int delta) {
+        try {
+            Map<String, Integer> counters = counters(jurisdiction, contractType, analysis);
+            for (String aggregateId : aggregateIds(owner, uploadedAt != null ? uploadedAt : Instant.now())) {
+                RiskAggregate empty = emptyAggregate(aggregateId);
+                Update update = new Update()
+                        .inc("total", delta)
+                        .set("updatedAt", Instant.now())
+                        .setOnInsert("scope", empty.getScope())
+                        .setOnInsert("period", empty.getPeriod());
+                counters.forEach((field, count) -> update.inc(field, count * delta));
+                mongoTemplate.upsert(Query.query(Criteria.where("_id").is(aggregateId)), update, RiskAggregate.class);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not update risk aggregates for {}: {}", owner, e.getMessage());
+        }
+    }
+
+    // The counter fields one contract contributes to, each by 1
+    private Map<String, Integer> counters(String jurisdiction, String contractType, ContractAnalysis analysis) {
+        Map<String, Integer> counters = new LinkedHashMap<>();
+        counters.put("byJurisdiction." + key(jurisdiction), 1);
+        counters.put("byContractType." + key(contractType), 1);
+        if (analysis == null) {
+            counters.put("byRiskLevel.Unknown", 1);
+            return counters;
+        }
+        counters.put("byRiskLevel." + key(analysis.getRiskLevel()), 1);
+        if (analysis.getRiskScore() != null) {
+            int bucket = Math.min(9, analysis.getRiskScore() / 10);
+            counters.put("scoreHistogram." + (bucket * 10) + "-" + (bucket == 9 ? 100 : bucket * 10 + 9), 1);
+        }
+        Set<String> categories = new LinkedHashSet<>();
+        for (ContractAnalysis.KeyRisk risk : analysis.getKeyRisks()) {
+            categories.add(categorize(risk.getClause() + " " + risk.getRiskExplanation()));
+        }
+        categories.forEach(c -> counters.put("riskCategories." + key(c), 1));
+        analysis.getMissingClauses().forEach(m -> counters.put("missingClauses." + match(MISSING_CLAUSES, m), 1));
+        return counters;
+    }
+
+    // Map keys can't contain '.' or start with '$'; also caps free text from the model
+    private static String key(String value) {
+        if (value == null || value.isBlank()) {
+            return "Unknown";
+        }
+        String key = value.trim().replaceAll("\\s+", " ").replace('.', '_').replace('$', '_');
+        return key.length() > 80 ? key.substring(0, 80) : key;
+    }
+
+    private static String categorize(String text) {
+        return match(CATEGORIES, text);
+    }
+
+    private static String match(Map<String, List<String>> vocabulary, String text) {
+        String lower = text == null ? "" : text.toLowerCase(Locale.ROOT);
+        for (Map.Entry<String, List<String>> category : vocabulary.entrySet()) {
+            if (category.getValue().stream().anyMatch(lower::contains)) {
+                return category.getKey();
+            }
+        }
+        return "Other";
+    }
+
+    private static Map<String, List<String>> categories() {
+        Map<String, List<String>> categories = new LinkedHashMap<>();
+        categories.put("Liability", List.of("liabilit", "damages", "uncapped", "unlimited"));
+        categories.put("Indemnification", List.of("indemn", "hold harmless"));
+        categories.put("Termination", List.of("terminat", "cancel"));
+        categories.put("Renewal", List.of("renew", "evergreen"));
+        categories.put("Payment", List.of("payment", "fee", "invoice", "price", "penalt", "interest"));
+        categories.put("Confidentiality", List.of("confidential", "non-disclosure", "nda"));
+        categories.put("Intellectual Property", List.of("intellectual property", "ownership", "license", "copyright", "patent"));
+        categories.put("Data Protection", List.of("data", "privacy", "gdpr", "personal information"));
+        categories.put("Non-compete", List.of("non-compete", "non compete", "non-solicit", "exclusiv"));
+        categories.put("Dispute Resolution", List.of("arbitrat", "dispute", "jurisdiction", "governing law", "venue"));
+        categories.put("Ambiguity", List.of("ambiguous", "vague", "reasonable efforts", "unclear"));
+        return categories;
+    }
+
+    private static Map<String, List<String>> missingClauseCategories() {
+        Map<String, List<String>> categories = new LinkedHashMap<>();
+        categories.put("Force Majeure", List.of("force majeure", "act of god", "acts of god"));
+        categories.put("Limitation of Liability", List.of("limitation of liability", "liability cap", "cap on liability", "limit liability", "liabilit"));
+        categories.put("Indemnification", List.of("indemn", "hold harmless"));
+        categories.put("Termination", List.of("terminat", "exit", "cancel"));
+        categories.put("Confidentiality", List.of("confidential", "non-disclosure", "nda"));
+        categories.put("Data Protection", List.of("data", "privacy", "gdpr", "personal information"));
+        categories.put("Intellectual Property", List.of("intellectual property", "ownership", "licen", "copyright", "patent"));
+        categories.put("Dispute Resolution", List.of("dispute", "arbitrat", "mediat"));
+        categories.put("Governing Law", List.of("governing law", "jurisdiction", "venue", "choice of law"));
+        categories.put("Payment Terms", List.of("payment", "fee", "invoice", "price", "late", "interest"));
+        categories.put("Warranties", List.of("warrant", "representation"));
+        categories.put("Insurance", List.of("insurance"));
+        categories.put("Assignment", List.of("assign", "change of control", "subcontract"));
+        categories.put("Non-compete", List.of("non-compete", "non compete", "non-solicit", "exclusiv"));
+        categories.put("Service Levels", List.of("service level", "sla", "uptime", "performance"));
+        categories.put("Audit Rights", List.of("audit", "inspection", "records"));
+        categories.put("Renewal", List.of("renew", "evergreen"));
+        categories.put("Notices", List.of("notice"));
+        categories.put("Severability", List.of("severab"));
+        categories.put("Entire Agreement", List.of("entire agreement", "amendment", "waiver"));
+        return categories;
+    }
+
+    // period: "all" (default) or "yyyy-MM"
+    public Map<String, Object> getUserAnalytics(String username, String period) {
+        return read("me", "user:" + username, period);
+    }
+
+    // Everyone's contracts; only reachable through the admin endpoints
+    public Map<String, Object> getGlobalAnalytics(String period) {
+        return read("global", "global", period);
+    }
+
+    private Map<String, Object> read(String scope, String scopeKey, String period) {
+        String periodKey = period == null || period.isBlank() ? "all" : period;
+        if (!periodKey.equals("all")) {
+            try {
+                periodKey = YearMonth.parse(periodKey).toString();
+            } catch (RuntimeException e) {
+                throw new AppException("period must be 'all' or yyyy-MM");
+            }
+        }
+
+        RiskAggregate aggregate = mongoTemplate.findById(scopeKey + ":" + periodKey, RiskAggregate.class);
+        if (aggregate == null) {
+            aggregate = new RiskAggregate();
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("scope", scope);
+        result.put("period", periodKey);
+        result.put("total", aggregate.getTotal());
+        result.put("byRiskLevel", positive(aggregate.getByRiskLevel(), Integer.MAX_VALUE));
+        result.put("byJurisdiction", positive(aggregate.getByJurisdiction(), Integer.MAX_VALUE));
+        result.put("byContractType", positive(aggregate.getByContractType(), Integer.MAX_VALUE));
+        result.put("scoreHistogram", histogram(aggregate.getScoreHistogram()));
+        result.put("topRiskCategories", positive(aggregate.getRiskCategories(), TOP_N));
+        result.put("topMissingClauses", positive(aggregate.getMissingClauses(), TOP_N));
+        result.put("updatedAt", aggregate.getUpdatedAt());
+        return result;
+    }
+
+    // Counters that dropped back to zero after deletes are left out; largest first
+    private static Map<String, Long> positive(Map<String, Long> counts, int limit) {
+        Map<String, Long> sorted = new LinkedHashMap<>();
+        counts.entrySet().stream()
+                .filter(e -> e.getValue() != null && e.getValue() > 0)
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(limit)
+                .forEach(e -> sorted.put(e.getKey(), e.getValue()));
+        return sorted;
+    }
+
+    private static Map<String, Long> histogram(Map<String, Long> counts) {
+        Map<String, Long> buckets = new LinkedHashMap<>();
+        for (int i = 0; i < 10; i++) {
+            String bucket = (i * 10) + "-" + (i == 9 ? 100 : i * 10 + 9);
+            buckets.put(bucket, Math.max(0, counts.getOrDefault(bucket, 0L)));
+        }
+        return buckets;
+    }
+
+    /**
+     * Builds every aggregate from the contracts when they predate the current counter layout (or
+     * the aggregates themselves). One node claims the rebuild; the others skip it. Totals are computed
+     * in memory and written with a replace, which would wipe any $inc landing meanwhile, so while the
+     * claim is held saves and deletes are parked in risk_aggregate_deltas instead. Once the recount is
+     * written each parked contract is squared up against whether the recount saw it.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfStale() {
+        if (!claimRebuild()) {
+            return;
+        }
+        try {
+            Map<String, RiskAggregate> aggregates = new LinkedHashMap<>();
+            Set<String> countedIds = new HashSet<>();
+            Query query = new Query();
+            query.fields().include("ownerUsername", "uploadedAt", "jurisdiction", "contractType", "analysisJson");
+            int counted = 0;
+            try (Stream<Document> contracts = mongoTemplate.stream(query, Document.class, "contracts")) {
+                for (Document doc : (Iterable<Document>) contracts::iterator) {
+                    Date uploadedAt = doc.getDate("uploadedAt");
+                    Object id = doc.get("_id");
+                    Instant when = uploadedAt != null ? uploadedAt.toInstant()
+                            : id instanceof ObjectId objectId ? objectId.getDate().toInstant() : Instant.now();
+                    Map<String, Integer> counters = counters(doc.getString("jurisdiction"), doc.getString("contractType"),
+                            ContractAnalysis.parse(doc.getString("analysisJson")));
+                    for (String aggregateId : aggregateIds(doc.getString("ownerUsername"), when)) {
+                        RiskAggregate aggregate = aggregates.computeIfAbsent(aggregateId, RiskAnalyticsService::emptyAggregate);
+                        aggregate.setTotal(aggregate.getTotal() + 1);
+                        counters.forEach((field, count) -> add(aggregate, field, count));
+                    }
+                    countedIds.add(id.toString());
+                    counted++;
+                }
+            }
+            Instant now = Instant.now();
+            for (RiskAggregate aggregate : aggregates.values()) {
+                aggregate.setUpdatedAt(now);
+                mongoTemplate.save(aggregate);
+            }
+            // Old documents nothing counts towards any more (e.g. months whose contracts were all deleted)
+            mongoTemplate.remove(Query.query(Criteria.where("_id").nin(aggregates.keySet()).ne(META_ID)), RiskAggregate.class);
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(META_ID)),
+                    new Update().set("version", AGGREGATE_VERSION).unset("claimedUntil"), RiskAggregate.class);
+            logger.info("Rebuilt {} risk aggregates from {} contracts", aggregates.size(), counted);
+            replayDeltas(countedIds);
+        } catch (RuntimeException e) {
+            // The claim runs out and the next start tries again
+            logger.warn("Could not build risk aggregates: {}", e.getMessage());
+        }
+    }
+
+    // A contract should end up counted once if its last parked change was a save and not at all if it
+    // was a delete; the recount already holds it once if the stream got to it while it existed
+    private void replayDeltas(Set<String> countedIds) {
+        Map<String, Document> last = new LinkedHashMap<>();
+        for (Document delta : mongoTemplate.find(new Query().with(Sort.by("_id")), Document.class, DELTAS)) {
+            last.put(delta.getString("contractId"), delta);
+        }
+        for (Map.Entry<String, Document> entry : last.entrySet()) {
+            Document delta = entry.getValue();
+            int adjust = (delta.getInteger("delta") > 0 ? 1 : 0) - (countedIds.contains(entry.getKey()) ? 1 : 0);
+            if (adjust != 0) {
+                Date uploadedAt = delta.getDate("uploadedAt");
+                apply(delta.getString("ownerUsername"), uploadedAt != null ? uploadedAt.toInstant() : null,
+                        delta.getString("jurisdiction"), delta.getString("contractType"),
+                        ContractAnalysis.parse(delta.getString("analysisJson")), adjust);
+            }
+        }
+        mongoTemplate.remove(Query.query(Criteria.where("contractId").in(last.keySet())), DELTAS);
+        if (!last.isEmpty()) {
+            logger.info("Replayed changes to {} contracts made during the rebuild", last.size());
+        }
+    }
+
+    // Single writer: only one node gets to move the meta document from an old version to "rebuilding"
+    private boolean claimRebuild() {
+        Instant now = Instant.now();
+        Query query = Query.query(Criteria.where("_id").is(META_ID)
+                .and("version").not().gte(AGGREGATE_VERSION)
+                .and("claimedUntil").not().gt(now));
+        Update update = new Update().set("claimedUntil", now.plus(REBUILD_LEASE));
+        try {
+            // Upsert creates the meta document on a fresh database; when it exists but doesn't match
+            // (current, or claimed by another node) the insert collides with its _id
+            return mongoTemplate.findAndModify(query, update,
+                    FindAndModifyOptions.options().upsert(true).returnNew(true), Document.class, "risk_aggregates") != null;
+        } catch (DuplicateKeyException e) {
+            return false;
+        } catch (RuntimeException e) {
+            logger.warn("Could not check risk aggregate version: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private static List<String> aggregateIds(String owner, Instant uploadedAt) {
+        String month = YearMonth.from(uploadedAt.atZone(ZoneOffset.UTC)).toString();
+        List<String> ids = new ArrayList<>();
+        for (String scope : List.of("user:" + owner, "global")) {
+            for (String period : List.of(month, "all")) {
+                ids.add(scope + ":" + period);
+            }
+        }
+        return ids;
+    }
+
+    private static RiskAggregate emptyAggregate(String id) {
+        RiskAggregate aggregate = new RiskAggregate();
+        aggregate.setId(id);
+        int split = id.lastIndexOf(':');
+        aggregate.setScope(id.substring(0, split));
+        aggregate.setPeriod(id.substring(split + 1));
+        return aggregate;
+    }
+
+    // field is a counter path from counters(), e.g. "byRiskLevel.High"
+    private static void add(RiskAggregate aggregate, String field, long count) {
+        int dot = field.indexOf('.');
+        Map<String, Long> counts = switch (field.substring(0, dot)) {
+            case "byRiskLevel" -> aggregate.getByRiskLevel();
+            case "byJurisdiction" -> aggregate.getByJurisdiction();
+            case "byContractType" -> aggregate.getByContractType();
+            case "scoreHistogram" -> aggregate.getScoreHistogram();
+            case "riskCategories" -> aggregate.getRiskCategories();
+            case "missingClauses" -> aggregate.getMissingClauses();
+            default -> throw new IllegalArgumentException("Unknown counter " + field);
+        };
+        counts.merge(field.substring(dot + 1), count, Long::sum);
+    }
+}
@@ -0,0 +1,43 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * An upload copied to a temp file so PDFBox can read it from disk instead of the heap.
+ * Closing it deletes the file.
+ */
+public class SpooledPdf implements AutoCloseable {
+
+    private final Path path;
+    private final long size;
+    private final String sha256; // hex digest of the uploaded bytes
+
+    SpooledPdf(Path path, long size, String sha256) {
+        this.path = path;
+        this.size = size;
+        this.sha256 = sha256;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public String getSha256() {
+        return sha256;
+    }
+
+    @Override
+    public void close() {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            path.toFile().deleteOnExit();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.service;
+
+import io.github.bucket4j.distributed.ExpirationAfterWriteStrategy;
+import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.AbstractCompareAndSwapBasedProxyManager;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.AsyncCompareAndSwapOperation;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.CompareAndSwapOperation;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Bucket4j proxy manager over a {@link BucketStateStore}. Bucket4j runs the read / modify /
+ * compare-and-swap loop (retrying on conflicts); we only remember which version each attempt read.
+ */
+public class StoreBackedProxyManager extends AbstractCompareAndSwapBasedProxyManager<String> {
+
+    private final BucketStateStore store;
+
+    public StoreBackedProxyManager(BucketStateStore store, Duration keepAfterRefill) {
+        super(ClientSideConfig.getDefault().withExpirationAfterWriteStrategy(
+                ExpirationAfterWriteStrategy.basedOnTimeForRefillingBucketUpToMax(keepAfterRefill)));
+        this.store = store;
+    }
+
+    @Override
+    protected CompareAndSwapOperation beginCompareAndSwapOperation(String key) {
+        return new CompareAndSwapOperation() {
+            private long readVersion;
+
+            @Override
+            public Optional<byte[]> getStateData(Optional<Long> timeoutNanos) {
+                Optional<BucketStateStore.VersionedState> current = store.read(key);
+                readVersion = current.map(BucketStateStore.VersionedState::version).orElse(0L);
+                return current.map(BucketStateStore.VersionedState::state);
+            }
+
+            @Override
+            public boolean compareAndSwap(byte[] originalData, byte[] newData, RemoteBucketState newState, Optional<Long> timeoutNanos) {
+                return store.compareAndSwap(key, readVersion, newData, expiresAt(newState));
+            }
+        };
+    }
+
+    // A bucket that would have refilled completely is the same as no bucket, so the store can drop it
+    private Instant expiresAt(RemoteBucketState state) {
+        long nowNanos = Optional.ofNullable(getClientSideTime()).orElseGet(() -> System.currentTimeMillis() * 1_000_000L);
+        long ttlMillis = getClientSideConfig().getExpirationAfterWriteStrategy().get()
+                .calculateTimeToLiveMillis(state, nowNanos);
+        return Instant.now().plusMillis(ttlMillis);
+    }
+
+    // The stores are blocking, so the async API runs the same operation on the caller's thread and
+    // hands back an already-completed future
+    @Override
+    protected AsyncCompareAndSwapOperation beginAsyncCompareAndSwapOperation(String key) {
+        CompareAndSwapOperation operation = beginCompareAndSwapOperation(key);
+        return new AsyncCompareAndSwapOperation() {
+            @Override
+            public CompletableFuture<Optional<byte[]>> getStateData(Optional<Long> timeoutNanos) {
+                return completed(() -> operation.getStateData(timeoutNanos));
+            }
+
+            @Override
+            public CompletableFuture<Boolean> compareAndSwap(byte[] originalData, byte[] newData, RemoteBucketState newState, Optional<Long> timeoutNanos) {
+                return completed(() -> operation.compareAndSwap(originalData, newData, newState, timeoutNanos));
+            }
+        };
+    }
+
+    @Override
+    public void removeProxy(String key) {
+        store.delete(key);
+    }
+
+    @Override
+    protected CompletableFuture<Void> removeAsync(String key) {
+        return completed(() -> {
+            store.delete(key);
+            return null;
+        });
+    }
+
+    private static <T> CompletableFuture<T> completed(Supplier<T> call) {
+        try {
+            return CompletableFuture.completedFuture(call.get());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public boolean isAsyncModeSupported() {
+        return true;
+    }
+
+    @Override
+    public boolean isExpireAfterWriteSupported() {
+        return true;
+    }
+}
@@ -1,20 +1,134 @@
 package com.RiskAnalyzerProject.ContractRiskAnalyzer.service;
 
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.model.RevokedToken;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.util.BloomFilter;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.util.ContentHash;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.Set;
 
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Logged-out tokens, kept until they would have expired anyway. Every request checks here, so the
+ * read path takes no lock: a Bloom filter answers "not revoked" for almost every token, and only
+ * its (rare) hits go to the map. Revocations are written to Mongo and pulled by the other nodes.
+ */
 @Service
 public class TokenBlacklistService {
-    // A synchronized set to make it thread-safe
-    private final Set<String> blacklistedTokens = Collections.synchronizedSet(new HashSet<>());
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenBlacklistService.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Value("${app.security.revocation.bloom-capacity:100000}")
+    private int bloomCapacity;
+
+    @Value("${app.security.revocation.bloom-false-positive-rate:0.01}")
+    private double bloomFalsePositiveRate;
+
+    // Overlap between pulls so a revocation written with a slightly skewed clock isn't skipped
+    @Value("${app.security.revocation.sync-overlap-seconds:30}")
+    private long syncOverlapSeconds;
+
+    // token key -> expiry (epoch millis)
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    private volatile BloomFilter bloom;
+    private volatile Instant syncedUntil = Instant.EPOCH;
+
+    @PostConstruct
+    public void init() {
+        bloom = new BloomFilter(bloomCapacity, bloomFalsePositiveRate);
+    }
 
     public void blacklistToken(String token) {
-        blacklistedTokens.add(token);
+        Claims claims;
+        try {
+            claims = jwtUtil.parseClaims(token);
+        } catch (ExpiredJwtException e) {
+            return; // already unusable
+        } catch (JwtException | IllegalArgumentException e) {
+            return; // not one of ours; the filter rejects it anyway
+        }
+        String key = key(claims, token);
+        Instant expiresAt = claims.getExpiration().toInstant();
+        remember(key, expiresAt.toEpochMilli());
+
+        RevokedToken entry = new RevokedToken();
+        entry.setId(key);
+        entry.setRevokedAt(Instant.now());
+        entry.setExpiresAt(expiresAt);
+        try {
+            mongoTemplate.save(entry);
+        } catch (RuntimeException e) {
+            // Still revoked on this node; the others won't know until it's saved
+            logger.warn("Could not persist token revocation: {}", e.getMessage());
+        }
+    }
+
+    // Claims come from the filter's parse, so the token isn't parsed a second time
+    public boolean isRevoked(Claims claims, String token) {
+        String key = key(claims, token);
+        if (!bloom.mightContain(key)) {
+            return false;
+        }
+        Long expiresAt = revoked.get(key);
+        return expiresAt != null && expiresAt > System.currentTimeMillis();
+    }
+
+    // Pulls revocations made on other nodes; the first run loads everything still unexpired
+    @Scheduled(fixedDelayString = "${app.security.revocation.sync-ms:5000}")
+    public void sync() {
+        Instant now = Instant.now();
+        Instant since = syncedUntil.minusSeconds(syncOverlapSeconds);
+        try {
+            Query query = Query.query(Criteria.where("revokedAt").gte(since).and("expiresAt").gt(now));
+            query.fields().include("expiresAt");
+            for (RevokedToken entry : mongoTemplate.find(query, RevokedToken.class)) {
+                if (!revoked.containsKey(entry.getId())) {
+                    remember(entry.getId(), entry.getExpiresAt().toEpochMilli());
+                }
+            }
+            syncedUntil = now;
+        } catch (RuntimeException e) {
+            logger.warn("Token revocation sync failed: {}", e.getMessage());
+        }
+    }
+
+    // Drops expired entries and rebuilds the filter, which can't forget on its own
+    @Scheduled(fixedDelayString = "${app.security.revocation.purge-ms:600000}")
+    public synchronized void purge() {
+        long now = System.currentTimeMillis();
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+        BloomFilter rebuilt = new BloomFilter(Math.max(bloomCapacity, revoked.size() * 2), bloomFalsePositiveRate);
+        revoked.keySet().forEach(rebuilt::add);
+        bloom = rebuilt;
+    }
+
+    // Synchronized with purge() so a revocation can't land in a filter that's about to be replaced
+    private synchronized void remember(String key, long expiresAt) {
+        revoked.put(key, expiresAt);
+        bloom.add(key);
     }
 
-    public boolean isBlacklisted(String token) {
-        return blacklistedTokens.contains(token);
+    private static String key(Claims claims, String token) {
+        return claims.getId() != null ? claims.getId() : ContentHash.sha256Hex(token);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,214 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.service;
+
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.model.AnalysisCacheEntry;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Spring {@link Cache} with a weight-bounded Caffeine L1 in front of a Mongo L2.
+ * L2 problems are logged and treated as misses; they never fail the call being cached.
+ */
+public class TwoTierCache implements Cache, MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(TwoTierCache.class);
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Object> l1;
+    private final MongoTemplate mongoTemplate;
+    private final Duration ttl;
+
+    private final LongAdder l1Hits = new LongAdder();
+    private final LongAdder l2Hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder l2Errors = new LongAdder();
+
+    public TwoTierCache(String name, MongoTemplate mongoTemplate, long l1MaxBytes, Duration ttl) {
+        this.name = name;
+        this.mongoTemplate = mongoTemplate;
+        this.ttl = ttl;
+        this.l1 = Caffeine.newBuilder()
+                .maximumWeight(l1MaxBytes)
+                .weigher((Object key, Object value) -> weigh(key) + weigh(value))
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    // Rough heap size; strings by length, anything else (parsed analyses) as a few KB
+    private static int weigh(Object o) {
+        return o instanceof String s ? 40 + s.length() * 2 : 4096;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return l1;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        Object value = lookup(key);
+        return value != null ? new SimpleValueWrapper(value) : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        Object value = lookup(key);
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object value = lookup(key);
+        if (value != null) {
+            return (T) value;
+        }
+        try {
+            T loaded = valueLoader.call();
+            put(key, loaded);
+            return loaded;
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            return; // nothing worth persisting
+        }
+        puts.increment();
+        l1.put(key, value);
+        Instant now = Instant.now();
+        AnalysisCacheEntry entry = new AnalysisCacheEntry();
+        entry.setId(l2Id(key));
+        entry.setCacheName(name);
+        entry.setValue(value);
+        entry.setCreatedAt(now);
+        entry.setExpiresAt(now.plus(ttl));
+        entry.setLastAccessedAt(now);
+        try {
+            mongoTemplate.save(entry);
+        } catch (RuntimeException e) {
+            l2Errors.increment();
+            logger.warn("Could not persist cache entry {} in {}: {}", key, name, e.getMessage());
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        l1.invalidate(key);
+        try {
+            mongoTemplate.remove(Query.query(Criteria.where("_id").is(l2Id(key))), AnalysisCacheEntry.class);
+        } catch (RuntimeException e) {
+            l2Errors.increment();
+            logger.warn("Could not evict cache entry {} from {}: {}", key, name, e.getMessage());
+        }
+    }
+
+    @Override
+    public void clear() {
+        l1.invalidateAll();
+        try {
+            mongoTemplate.remove(Query.query(Criteria.where("cacheName").is(name)), AnalysisCacheEntry.class);
+        } catch (RuntimeException e) {
+            l2Errors.increment();
+            logger.warn("Could not clear cache {}: {}", name, e.getMessage());
+        }
+    }
+
+    private Object lookup(Object key) {
+        Object value = l1.getIfPresent(key);
+        if (value != null) {
+            l1Hits.increment();
+            return value;
+        }
+        try {
+            String id = l2Id(key);
+            AnalysisCacheEntry entry = mongoTemplate.findById(id, AnalysisCacheEntry.class);
+            // The TTL monitor runs once a minute, so an expired entry can still be there
+            if (entry != null && entry.getValue() != null && entry.getExpiresAt().isAfter(Instant.now())) {
+                l2Hits.increment();
+                l1.put(key, entry.getValue());
+                mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(id)),
+                        Update.update("lastAccessedAt", Instant.now()), AnalysisCacheEntry.class);
+                return entry.getValue();
+            }
+        } catch (RuntimeException e) {
+            l2Errors.increment();
+            logger.warn("Cache L2 lookup failed for {} in {}: {}", key, name, e.getMessage());
+        }
+        misses.increment();
+        return null;
+    }
+
+    // Loads the most recently used L2 entries into L1 so the first requests after a deploy are warm
+    public int warmUp(int maxEntries) {
+        Query query = Query.query(Criteria.where("cacheName").is(name).and("expiresAt").gt(Instant.now()))
+                .with(Sort.by(Sort.Direction.DESC, "lastAccessedAt"))
+                .limit(maxEntries);
+        List<AnalysisCacheEntry> entries = mongoTemplate.find(query, AnalysisCacheEntry.class);
+        String prefix = name + ":";
+        for (AnalysisCacheEntry entry : entries) {
+            l1.put(entry.getId().substring(prefix.length()), entry.getValue());
+        }
+        return entries.size();
+    }
+
+    private String l2Id(Object key) {
+        return name + ":" + key;
+    }
+
+    // Bound automatically since the cache is a bean; same names as Spring's cache metrics, plus the tier
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", l1Hits, LongAdder::sum)
+                .tags("cache", name, "result", "hit", "tier", "l1").register(registry);
+        FunctionCounter.builder("cache.gets", l2Hits, LongAdder::sum)
+                .tags("cache", name, "result", "hit", "tier", "l2").register(registry);
+        FunctionCounter.builder("cache.gets", misses, LongAdder::sum)
+                .tags("cache", name, "result", "miss", "tier", "none").register(registry);
+        FunctionCounter.builder("cache.puts", puts, LongAdder::sum)
+                .tags("cache", name).register(registry);
+        FunctionCounter.builder("cache.l2.errors", l2Errors, LongAdder::sum)
+                .tags("cache", name).register(registry);
+        FunctionCounter.builder("cache.evictions", l1, c -> c.stats().evictionCount())
+                .tags("cache", name).register(registry);
+        Gauge.builder("cache.size", l1, com.github.benmanes.caffeine.cache.Cache::estimatedSize)
+                .tags("cache", name).register(registry);
+        Gauge.builder("cache.hit.ratio", this, c -> {
+                    long hits = c.l1Hits.sum() + c.l2Hits.sum();
+                    long lookups = hits + c.misses.sum();
+                    return lookups == 0 ? 0.0 : (double) hits / lookups;
+                })
+                .tags("cache", name).register(registry);
+    }
+}
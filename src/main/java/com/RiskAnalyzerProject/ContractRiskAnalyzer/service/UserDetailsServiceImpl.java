@@ -2,13 +2,20 @@ package com.RiskAnalyzerProject.ContractRiskAnalyzer.service;
 
 import com.RiskAnalyzerProject.ContractRiskAnalyzer.model.User;
 import com.RiskAnalyzerProject.ContractRiskAnalyzer.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.Collections;
+import java.util.List;
 
 @Service
 public class UserDetailsServiceImpl implements UserDetailsService {
@@ -16,6 +23,26 @@ public class UserDetailsServiceImpl implements UserDetailsService {
     @Autowired
     private UserRepository userRepository;
 
+    // 0 = trust the role in the token (no lookup). Above 0, tokens are checked against the user
+    // record at most this often, so deleted accounts and role changes take effect within the TTL.
+    @Value("${app.security.principal-cache-ttl-seconds:0}")
+    private long principalCacheTtlSeconds;
+
+    @Value("${app.security.principal-cache-max-size:10000}")
+    private long principalCacheMaxSize;
+
+    private Cache<String, UserDetails> principals;
+
+    @PostConstruct
+    public void init() {
+        if (principalCacheTtlSeconds > 0) {
+            principals = Caffeine.newBuilder()
+                    .expireAfterWrite(Duration.ofSeconds(principalCacheTtlSeconds))
+                    .maximumSize(principalCacheMaxSize)
+                    .build();
+        }
+    }
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         User user = userRepository.findByUsername(username)
@@ -24,7 +51,30 @@ public class UserDetailsServiceImpl implements UserDetailsService {
         return new org.springframework.security.core.userdetails.User(
                 user.getUsername(),
                 user.getPassword(),
-                Collections.emptyList()
+                authorities(user.getRole())
         );
     }
-}
\ No newline at end of file
+
+    // Principal for an already verified token. Tokens issued before the role claim existed fall back to the database.
+    public UserDetails loadFromToken(String username, String role) {
+        if (principals != null) {
+            return principals.get(username, this::loadUserByUsername);
+        }
+        if (role == null) {
+            return loadUserByUsername(username);
+        }
+        return new org.springframework.security.core.userdetails.User(username, "", authorities(role));
+    }
+
+    public void evict(String username) {
+        if (principals != null) {
+            principals.invalidate(username);
+        }
+    }
+
+    private static List<SimpleGrantedAuthority> authorities(String role) {
+        return role == null || role.isBlank()
+                ? Collections.emptyList()
+                : List.of(new SimpleGrantedAuthority("ROLE_" + role.toUpperCase()));
+    }
+}
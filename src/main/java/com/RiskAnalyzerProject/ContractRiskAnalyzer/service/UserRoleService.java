@@ -0,0 +1,35 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.service;
+
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.model.User;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+// The one place that decides whether a user is an admin. Admin-only endpoints live under /api/admin
+// and are gated in SecurityConfiguration; this is for endpoints where admins just see more.
+@Service
+public class UserRoleService {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    // The request's token already carries the role; only look the user up when it doesn't
+    public String roleOf(String username) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && username.equals(auth.getName())) {
+            for (GrantedAuthority authority : auth.getAuthorities()) {
+                if (authority.getAuthority().startsWith("ROLE_")) {
+                    return authority.getAuthority().substring("ROLE_".length());
+                }
+            }
+        }
+        return userRepository.findByUsername(username).map(User::getRole).orElse(null);
+    }
+
+    public boolean isAdmin(String username) {
+        return "ADMIN".equalsIgnoreCase(roleOf(username));
+    }
+}
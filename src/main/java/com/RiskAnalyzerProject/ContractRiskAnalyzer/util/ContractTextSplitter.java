@@ -0,0 +1,110 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Splits contract text on clause/section boundaries so no clause is cut in half.
+ */
+public final class ContractTextSplitter {
+
+    // "ARTICLE 5", "Section 4.2", "12.", "7.3.1 Termination", "(a)" is deliberately not a boundary,
+    // and stand-alone ALL CAPS headings like "LIMITATION OF LIABILITY"
+    private static final Pattern HEADING = Pattern.compile(
+            "^\\s*(?:(?:ARTICLE|Article|SECTION|Section|CLAUSE|Clause|SCHEDULE|Schedule|EXHIBIT|Exhibit|ANNEX|Annex)\\s+[0-9IVXLCivxlc]+"
+                    + "|\\d{1,3}(?:\\.\\d{1,3})*[.)]?\\s+\\S"
+                    + "|[A-Z][A-Z0-9 ,&/\\-]{3,80}$)");
+
+    private static final Pattern LABEL = Pattern.compile(
+            "^\\s*(?:((?:ARTICLE|Article|SECTION|Section|CLAUSE|Clause|SCHEDULE|Schedule|EXHIBIT|Exhibit|ANNEX|Annex)\\s+[0-9IVXLCivxlc]+(?:\\.\\d+)*)"
+                    + "|(\\d{1,3}(?:\\.\\d{1,3})*)[.)]?\\s)");
+
+    private ContractTextSplitter() {
+    }
+
+    // The clause number a section starts with ("4.2", "Article 5"), or null if it has none
+    public static String headingLabel(String section) {
+        Matcher m = LABEL.matcher(section);
+        if (!m.find()) {
+            return null;
+        }
+        return m.group(1) != null ? m.group(1) : m.group(2);
+    }
+
+    // Each section starts with its heading line; text before the first heading is its own section
+    public static List<String> splitSections(String text) {
+        List<String> sections = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return sections;
+        }
+        StringBuilder current = new StringBuilder();
+        boolean bareHeading = false;
+        for (String line : text.split("\\R", -1)) {
+            // A heading on its own line ("ARTICLE 8 TERMS") stays attached to the body that follows
+            if (HEADING.matcher(line).find() && !current.toString().isBlank() && !bareHeading) {
+                sections.add(current.toString().trim());
+                current.setLength(0);
+            }
+            if (!line.isBlank()) {
+                bareHeading = current.toString().isBlank() && isBareHeading(line);
+            }
+            current.append(line).append('\n');
+        }
+        if (!current.toString().isBlank()) {
+            sections.add(current.toString().trim());
+        }
+        return sections;
+    }
+
+    private static boolean isBareHeading(String line) {
+        String trimmed = line.trim();
+        return trimmed.length() <= 60 && !trimmed.endsWith(".") && HEADING.matcher(trimmed).find();
+    }
+
+    // Packs whole sections into chunks of at most maxChars; oversized sections are split on paragraphs/sentences
+    public static List<String> chunk(String text, int maxChars) {
+        List<String> chunks = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String section : splitSections(text)) {
+            for (String piece : section.length() > maxChars ? splitOversized(section, maxChars) : List.of(section)) {
+                if (current.length() > 0 && current.length() + piece.length() + 2 > maxChars) {
+                    chunks.add(current.toString());
+                    current.setLength(0);
+                }
+                if (current.length() > 0) {
+                    current.append("\n\n");
+                }
+                current.append(piece);
+            }
+        }
+        if (current.length() > 0) {
+            chunks.add(current.toString());
+        }
+        return chunks;
+    }
+
+    // Splits one long section into pieces of at most maxChars, preferring paragraph then sentence breaks
+    public static List<String> splitOversized(String section, int maxChars) {
+        List<String> pieces = new ArrayList<>();
+        int start = 0;
+        while (start < section.length()) {
+            int end = Math.min(start + maxChars, section.length());
+            if (end < section.length()) {
+                // Prefer a paragraph break, then a sentence end, in the back half of the window
+                int cut = section.lastIndexOf("\n\n", end);
+                if (cut <= start + maxChars / 2) {
+                    cut = section.lastIndexOf(". ", end);
+                    cut = cut > start + maxChars / 2 ? cut + 1 : -1;
+                }
+                if (cut > start + maxChars / 2) {
+                    end = cut;
+                }
+            }
+            pieces.add(section.substring(start, end).trim());
+            start = end;
+        }
+        return pieces;
+    }
+}
@@ -1,67 +1,73 @@
 package com.RiskAnalyzerProject.ContractRiskAnalyzer.util;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.security.Key;
 import java.util.Date;
-import java.util.function.Function;
+import java.util.UUID;
 
 @Component
 public class JwtUtil {
 
+    public static final String ROLE_CLAIM = "role";
+
     @Value("${app.security.jwt-secret}")
     private String secretKey;
 
     @Value("${app.security.jwt-expiration}")
     private long jwtExpiration;
 
+    // Decoded once; the parser is immutable and safe to share between request threads
+    private Key signingKey;
+    private JwtParser parser;
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
+        parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+    }
+
     // 1. Generate Token (Valid for 10 hours)
     public String generateToken(String username) {
-        return Jwts.builder()
-                .setSubject(username)
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 10))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
-                .compact();
+        return builder(username).compact();
+    }
+
+    // Login tokens carry the role, so authenticating a request doesn't need a user lookup
+    public String generateToken(String username, String role) {
+        return builder(username).claim(ROLE_CLAIM, role).compact();
     }
 
     // 2. Validate Token
     public boolean validateToken(String token, String username) {
-        final String extractedUsername = extractUsername(token);
-        return (extractedUsername.equals(username) && !isTokenExpired(token));
+        // Signature and expiry are checked by the parser
+        return username.equals(parseClaims(token).getSubject());
     }
 
     // 3. Extract Username from Token
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return parseClaims(token).getSubject();
     }
 
-    // Helper Methods
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    // Verified claims; throws ExpiredJwtException / JwtException if the token can't be trusted
+    public Claims parseClaims(String token) {
+        return parser.parseClaimsJws(token).getBody();
     }
 
-    private <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
-    }
-
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder().setSigningKey(getSigningKey()).build().parseClaimsJws(token).getBody();
-    }
-
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
-    private Key getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private JwtBuilder builder(String username) {
+        return Jwts.builder()
+                .setId(UUID.randomUUID().toString()) // lets the token be revoked by id
+                .setSubject(username)
+                .setIssuedAt(new Date(System.currentTimeMillis()))
+                .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 10))
+                .signWith(signingKey, SignatureAlgorithm.HS256);
     }
-}
\ No newline at end of file
+}
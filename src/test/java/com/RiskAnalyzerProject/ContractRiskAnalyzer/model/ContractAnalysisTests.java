@@ -0,0 +1,126 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.NullAndEmptySource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContractAnalysisTests {
+
+    @Test
+    void parsesFencedOutputWithProseAround() {
+        ContractAnalysis analysis = ContractAnalysis.parse("""
+                Here is the analysis you asked for:
+                ```json
+                {"summary": "Standard lease.", "risk_score": 35, "risk_level": "Low",
+                 "key_risks": [{"clause": "Rent review", "severity": "Low", "risk_explanation": "Annual"}],
+                 "missing_clauses": ["Break clause"], "recommendations": ["Add a break clause"]}
+                ```
+                Let me know if you need anything else.
+                """);
+
+        assertNotNull(analysis);
+        assertEquals("Standard lease.", analysis.getSummary());
+        assertEquals(35, analysis.getRiskScore());
+        assertEquals("Annual", analysis.getKeyRisks().get(0).getRiskExplanation());
+        assertEquals(List.of("Break clause"), analysis.getMissingClauses());
+    }
+
+    @Test
+    void repairsTrailingCommas() {
+        ContractAnalysis analysis = ContractAnalysis.parse("""
+                {"summary": "Fine.", "risk_level": "Medium",
+                 "missing_clauses": ["Force majeure", "Governing law",],
+                 "recommendations": [],}
+                """);
+
+        assertNotNull(analysis);
+        assertEquals(List.of("Force majeure", "Governing law"), analysis.getMissingClauses());
+    }
+
+    @Test
+    void normalizesLevelsAndClampsTheScore() {
+        ContractAnalysis analysis = ContractAnalysis.parse("""
+                {"summary": "Risky.", "risk_score": 140, "risk_level": "HIGH RISK",
+                 "key_risks": [{"clause": "Indemnity", "severity": "med"},
+                               {"clause": "Liability", "severity": "critical"},
+                               {"severity": "low"},
+                               null]}
+                """);
+
+        assertNotNull(analysis);
+        assertEquals(100, analysis.getRiskScore());
+        assertEquals("High", analysis.getRiskLevel());
+        // Risks with neither a clause nor an explanation are dropped
+        assertEquals(2, analysis.getKeyRisks().size());
+        assertEquals("Medium", analysis.getKeyRisks().get(0).getSeverity());
+        assertEquals("High", analysis.getKeyRisks().get(1).getSeverity());
+    }
+
+    @Test
+    void derivesTheLevelFromTheScore() {
+        assertEquals("High", ContractAnalysis.parse("{\"risk_score\": 70}").getRiskLevel());
+        assertEquals("Medium", ContractAnalysis.parse("{\"risk_score\": \"55\"}").getRiskLevel());
+        assertEquals("Low", ContractAnalysis.parse("{\"risk_score\": -5, \"risk_level\": \"unclear\"}").getRiskLevel());
+    }
+
+    @Test
+    void missingListsBecomeEmptyAndUnknownFieldsAreIgnored() {
+        ContractAnalysis analysis = ContractAnalysis.parse(
+                "{\"summary\": \"Short.\", \"key_risks\": null, \"present_clauses\": [\"Payment\"], \"confidence\": 0.9}");
+
+        assertNotNull(analysis);
+        assertTrue(analysis.getKeyRisks().isEmpty());
+        assertTrue(analysis.getMissingClauses().isEmpty());
+        assertTrue(analysis.getRecommendations().isEmpty());
+        assertNull(analysis.getRiskLevel());
+    }
+
+    @ParameterizedTest
+    @NullAndEmptySource
+    @ValueSource(strings = {
+            "  ",
+            "I can't analyze this document.",
+            "} backwards {",
+            "{\"summary\": \"Unterminated",
+            "{summary: 'not json at all'}",
+            "{\"recommendations\": [\"Get a lawyer\"]}",
+            "{\"summary\": \"  \", \"risk_level\": \"n/a\"}",
+            "{\"risk_score\": \"very high\"}"})
+    void unusableOutputGivesNull(String raw) {
+        assertNull(ContractAnalysis.parse(raw));
+    }
+
+    @Test
+    void repairReturnsTheObjectOrNull() {
+        assertEquals(2, ContractAnalysis.repair("Sure: {\"a\": 1, \"b\": [1, 2,],}").size());
+        assertNull(ContractAnalysis.repair("[1, 2, 3]"));
+        assertNull(ContractAnalysis.repair("{\"a\": }"));
+    }
+
+    @Test
+    void canonicalJsonParsesBackToTheSameAnalysis() {
+        ContractAnalysis analysis = ContractAnalysis.parse("""
+                {"summary": "Lease.", "risk_score": 62, "comparison_notes": "Typical.",
+                 "key_risks": [{"clause": "Rent", "severity": "Medium", "risk_explanation": "Uncapped increases"}]}
+                """);
+
+        assertEquals(analysis, ContractAnalysis.parse(analysis.toJson()));
+    }
+
+    @Test
+    void levelNames() {
+        assertEquals("High", ContractAnalysis.normalizeLevel(" high "));
+        assertEquals("Medium", ContractAnalysis.normalizeLevel("Medium risk"));
+        assertEquals("Low", ContractAnalysis.normalizeLevel("LOW"));
+        assertNull(ContractAnalysis.normalizeLevel("severe"));
+        assertNull(ContractAnalysis.normalizeLevel(""));
+    }
+}
@@ -0,0 +1,79 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.service;
+
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.model.ContractAnalysis;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class AiAnalysisTests {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final String PART_ONE = """
+            {"summary": "Covers definitions and indemnity.", "risk_score": 40,
+             "key_risks": [{"clause": "Indemnity", "severity": "Low", "risk_explanation": "Uncapped"}],
+             "missing_clauses": ["Termination clause", "Governing law"],
+             "present_clauses": ["Payment"],
+             "recommendations": ["Cap the indemnity"]}
+            """;
+
+    private static final String PART_TWO = """
+            {"summary": "Covers liability and termination.", "risk_score": 80,
+             "key_risks": [{"clause": " indemnity", "severity": "High"},
+                           {"clause": "Limitation of liability", "severity": "High"},
+                           {"clause": "Notices", "severity": "Medium"}],
+             "missing_clauses": ["Payment terms"],
+             "present_clauses": ["Termination clause"],
+             "recommendations": ["Cap the indemnity", "Add a service level"],
+             "comparison_notes": "Stricter than usual."}
+            """;
+
+    @Test
+    void mergeTakesTheRiskiestPartAndDeduplicates() throws Exception {
+        JsonNode merged = MAPPER.readTree(AiAnalysis.mergeChunkResults(
+                List.of(MAPPER.readTree(PART_ONE), MAPPER.readTree(PART_TWO)), 2));
+
+        assertEquals("Analyzed in 2 parts. Covers definitions and indemnity. Covers liability and termination.",
+                merged.path("summary").asText());
+        assertEquals(80, merged.path("risk_score").asInt());
+        assertEquals("High", merged.path("risk_level").asText());
+        // First mention of a clause wins; then sorted High, Medium, Low
+        assertEquals(List.of("Limitation of liability", "Notices", "Indemnity"),
+                merged.path("key_risks").findValuesAsText("clause"));
+        assertEquals(List.of("Cap the indemnity", "Add a service level"),
+                MAPPER.convertValue(merged.path("recommendations"), List.class));
+        assertEquals("Stricter than usual.", merged.path("comparison_notes").asText());
+    }
+
+    @Test
+    void clausesFoundInAnotherPartAreNotMissing() throws Exception {
+        JsonNode merged = MAPPER.readTree(AiAnalysis.mergeChunkResults(
+                List.of(MAPPER.readTree(PART_ONE), MAPPER.readTree(PART_TWO)), 2));
+
+        assertEquals(List.of("Governing law"), MAPPER.convertValue(merged.path("missing_clauses"), List.class));
+    }
+
+    @Test
+    void mergedResultParsesAsAnAnalysis() throws Exception {
+        ContractAnalysis analysis = ContractAnalysis.parse(AiAnalysis.mergeChunkResults(
+                List.of(MAPPER.readTree(PART_ONE), MAPPER.readTree(PART_TWO)), 2));
+
+        assertNotNull(analysis);
+        assertEquals(3, analysis.getKeyRisks().size());
+        assertEquals("High", analysis.getRiskLevel());
+    }
+
+    @Test
+    void lowScoresGiveALowLevel() throws Exception {
+        JsonNode merged = MAPPER.readTree(AiAnalysis.mergeChunkResults(
+                List.of(MAPPER.readTree("{\"summary\": \"Fine.\", \"risk_score\": 12}")), 1));
+
+        assertEquals("Low", merged.path("risk_level").asText());
+        assertEquals(0, merged.path("key_risks").size());
+    }
+}
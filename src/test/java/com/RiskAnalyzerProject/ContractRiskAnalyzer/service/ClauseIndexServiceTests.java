@@ -0,0 +1,132 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.service;
+
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.model.ClauseIndex;
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.repository.ClauseIndexRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.AdditionalAnswers;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+
+class ClauseIndexServiceTests {
+
+    private static final String CONTRACT = """
+            1. Payment
+            The client pays each invoice within 30 days.
+            2. Late payment
+            Late payment of an invoice accrues interest at 2% per month.
+            3. Termination
+            Either party may terminate this agreement with 60 days notice.
+            4. Invoices
+            Invoices are sent monthly by email and payment is by bank transfer.
+            5. Confidentiality
+            Each party keeps the other party's information confidential.
+            """;
+
+    private static final Pattern LABEL = Pattern.compile("^\\[Clause ([^]]+)]$", Pattern.MULTILINE);
+
+    private ClauseIndexRepository repository;
+    private ClauseIndexService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = Mockito.mock(ClauseIndexRepository.class);
+        Mockito.when(repository.save(any())).thenAnswer(AdditionalAnswers.returnsFirstArg());
+        service = new ClauseIndexService();
+        ReflectionTestUtils.setField(service, "clauseIndexRepository", repository);
+        ReflectionTestUtils.setField(service, "maxClauseChars", 1500);
+        ReflectionTestUtils.setField(service, "maxContextChars", 8000);
+        topK(1);
+    }
+
+    @Test
+    void indexHasOneClausePerSection() {
+        ClauseIndex index = index(CONTRACT);
+
+        assertEquals(List.of("1", "2", "3", "4", "5"), index.getClauses().stream().map(ClauseIndex.Clause::getLabel).toList());
+        // "invoice" and "invoices" are one term
+        assertEquals(List.of(0, 1, 3), index.getPostings().get("invoice").stream().map(ClauseIndex.Posting::getClause).toList());
+    }
+
+    @Test
+    void clauseMatchingMostQueryTermsRanksFirst() {
+        index(CONTRACT);
+
+        assertEquals(List.of("2"), labels(service.relevantClauses("c1", "What interest applies to late payments?")));
+        assertEquals(List.of("3"), labels(service.relevantClauses("c1", "Terminations")));
+    }
+
+    @Test
+    void rareTermsOutweighCommonOnes() {
+        index(CONTRACT);
+
+        // "payment" is in three clauses, "confidential" in one
+        assertEquals(List.of("5"), labels(service.relevantClauses("c1", "payment confidential")));
+    }
+
+    @Test
+    void shorterClauseWinsOnEqualTermFrequency() {
+        index("""
+                1. Deposit
+                The deposit is refundable subject to inspection of the premises, the return of all keys,
+                the settlement of outstanding utility bills and a final cleaning of the property.
+                2. Refund
+                The deposit is refundable.
+                """);
+
+        assertEquals(List.of("2"), labels(service.relevantClauses("c1", "deposit")));
+    }
+
+    @Test
+    void selectedClausesComeBackInDocumentOrder() {
+        index(CONTRACT);
+        topK(3);
+
+        assertEquals(List.of("1", "2", "4"), labels(service.relevantClauses("c1", "invoice interest")));
+    }
+
+    @Test
+    void noMatchFallsBackToOpeningClauses() {
+        index(CONTRACT);
+        topK(2);
+
+        assertEquals(List.of("1", "2"), labels(service.relevantClauses("c1", "summarize this")));
+    }
+
+    @Test
+    void bestClauseIsKeptEvenWhenOverBudget() {
+        index(CONTRACT);
+        topK(3);
+        ReflectionTestUtils.setField(service, "maxContextChars", 1);
+
+        assertEquals(List.of("2"), labels(service.relevantClauses("c1", "invoice interest")));
+    }
+
+    private ClauseIndex index(String text) {
+        ClauseIndex index = service.build("c1", text);
+        Mockito.when(repository.findById("c1")).thenReturn(Optional.of(index));
+        return index;
+    }
+
+    private void topK(int k) {
+        ReflectionTestUtils.setField(service, "topK", k);
+    }
+
+    private static List<String> labels(String context) {
+        List<String> labels = new ArrayList<>();
+        Matcher m = LABEL.matcher(context);
+        while (m.find()) {
+            labels.add(m.group(1));
+        }
+        return labels;
+    }
+}
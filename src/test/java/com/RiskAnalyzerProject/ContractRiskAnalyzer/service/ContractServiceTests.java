@@ -0,0 +1,48 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.service;
+
+import com.RiskAnalyzerProject.ContractRiskAnalyzer.exception.AppException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ContractServiceTests {
+
+    private static final String ID = "652f1c2e9b1d4a3f8c7e6d5b";
+
+    @Test
+    void cursorRoundTrips() {
+        ContractService.PageCursor cursor = new ContractService.PageCursor(Instant.ofEpochMilli(1_760_000_000_123L), ID);
+
+        assertEquals(cursor, ContractService.PageCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void cursorIsUrlSafe() {
+        String encoded = new ContractService.PageCursor(Instant.now(), ID).encode();
+
+        assertFalse(encoded.matches(".*[+/=].*"), encoded);
+    }
+
+    @Test
+    void cursorThatIsNotBase64IsRejected() {
+        assertThrows(AppException.class, () -> ContractService.PageCursor.decode("not base64!"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"abc", "1760000000123", "1760000000123:not-an-id", "yesterday:", "soon:" + ID, ID})
+    void malformedCursorIsRejected(String raw) {
+        assertThrows(AppException.class, () -> ContractService.PageCursor.decode(encode(raw)));
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
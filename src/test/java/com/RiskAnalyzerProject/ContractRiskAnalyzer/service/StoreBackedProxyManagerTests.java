@@ -0,0 +1,109 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.service;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.Refill;
+import io.github.bucket4j.distributed.AsyncBucketProxy;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StoreBackedProxyManagerTests {
+
+    private static final BucketConfiguration FIFTY_PER_HOUR = BucketConfiguration.builder()
+            .addLimit(Bandwidth.classic(50, Refill.intervally(50, Duration.ofHours(1))))
+            .build();
+
+    @Test
+    void staleVersionIsRejected() {
+        InMemoryBucketStateStore store = new InMemoryBucketStateStore();
+        Instant expiresAt = Instant.now().plusSeconds(60);
+
+        assertTrue(store.compareAndSwap("alice", 0, new byte[]{1}, expiresAt));
+        assertFalse(store.compareAndSwap("alice", 0, new byte[]{2}, expiresAt));
+        assertTrue(store.compareAndSwap("alice", 1, new byte[]{3}, expiresAt));
+        assertEquals(2, store.read("alice").orElseThrow().version());
+    }
+
+    @Test
+    void expiredStateCanBeReplaced() {
+        InMemoryBucketStateStore store = new InMemoryBucketStateStore();
+
+        assertTrue(store.compareAndSwap("alice", 0, new byte[]{1}, Instant.now().minusSeconds(1)));
+        assertTrue(store.read("alice").isEmpty());
+        assertTrue(store.compareAndSwap("alice", 0, new byte[]{2}, Instant.now().plusSeconds(60)));
+        assertEquals(1, store.read("alice").orElseThrow().version());
+    }
+
+    @Test
+    void bucketIsUsableAgainAfterItsStateExpires() {
+        InMemoryBucketStateStore store = new InMemoryBucketStateStore();
+        // Refills in 50ms and is dropped as soon as it's full again
+        Bucket bucket = new StoreBackedProxyManager(store, Duration.ZERO).builder().build("alice", () -> BucketConfiguration.builder()
+                .addLimit(Bandwidth.classic(5, Refill.intervally(5, Duration.ofMillis(50))))
+                .build());
+
+        assertTrue(bucket.tryConsume(5));
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            Thread.sleep(200);
+            assertTrue(store.read("alice").isEmpty());
+            assertTrue(bucket.tryConsume(1));
+        });
+        assertEquals(4, bucket.getAvailableTokens());
+    }
+
+    @Test
+    void nodesSharingAStoreNeverOverspendABucket() throws Exception {
+        InMemoryBucketStateStore store = new InMemoryBucketStateStore();
+        // Three "replicas", each with its own proxy manager over the same store
+        List<Bucket> replicas = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            replicas.add(new StoreBackedProxyManager(store, Duration.ofMinutes(5))
+                    .builder().build("alice", () -> FIFTY_PER_HOUR));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(12);
+        List<Future<Boolean>> attempts = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            Bucket bucket = replicas.get(i % replicas.size());
+            attempts.add(pool.submit(() -> bucket.tryConsume(1)));
+        }
+        int granted = 0;
+        for (Future<Boolean> attempt : attempts) {
+            if (attempt.get()) {
+                granted++;
+            }
+        }
+        pool.shutdown();
+
+        assertEquals(50, granted);
+        assertEquals(0, replicas.get(0).getAvailableTokens());
+    }
+
+    @Test
+    void asyncBucketsShareStateWithSyncOnes() throws Exception {
+        InMemoryBucketStateStore store = new InMemoryBucketStateStore();
+        StoreBackedProxyManager proxyManager = new StoreBackedProxyManager(store, Duration.ofMinutes(5));
+        AsyncBucketProxy async = proxyManager.asAsync().builder().build("alice", () -> CompletableFuture.completedFuture(FIFTY_PER_HOUR));
+        Bucket sync = proxyManager.builder().build("alice", () -> FIFTY_PER_HOUR);
+
+        assertTrue(async.tryConsume(10).get());
+        assertEquals(40, sync.getAvailableTokens());
+
+        proxyManager.asAsync().removeProxy("alice").get();
+        assertTrue(store.read("alice").isEmpty());
+    }
+}
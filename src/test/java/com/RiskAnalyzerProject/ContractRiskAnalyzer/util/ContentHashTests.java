@@ -0,0 +1,56 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class ContentHashTests {
+
+    @Test
+    void sha256MatchesTheKnownDigest() {
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", ContentHash.sha256Hex("abc"));
+    }
+
+    @Test
+    void streamingDigestMatchesTheOneShotHash() {
+        MessageDigest digest = ContentHash.newSha256();
+        digest.update("ab".getBytes(StandardCharsets.UTF_8));
+        digest.update("c".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(ContentHash.sha256Hex("abc"), ContentHash.hex(digest));
+    }
+
+    @Test
+    void lineWrappingAndSpacingDontChangeTheFingerprint() {
+        String extracted = "1. Payment\nThe client pays within\n30 days.\n";
+        String reexported = "  1. Payment The client\r\npays within  30\tdays. ";
+
+        assertEquals(ContentHash.textFingerprint(extracted), ContentHash.textFingerprint(reexported));
+    }
+
+    @Test
+    void composedAndDecomposedAccentsFingerprintTheSame() {
+        String composed = "Caf\u00e9 lease";
+        String decomposed = "Cafe\u0301 lease";
+
+        assertEquals(ContentHash.textFingerprint(composed), ContentHash.textFingerprint(decomposed));
+    }
+
+    @Test
+    void differentWordsGiveDifferentFingerprints() {
+        assertNotEquals(ContentHash.textFingerprint("Pay within 30 days."), ContentHash.textFingerprint("Pay within 60 days."));
+        // Case is content, not formatting
+        assertNotEquals(ContentHash.textFingerprint("Net 30"), ContentHash.textFingerprint("NET 30"));
+    }
+
+    @Test
+    void nullIsTreatedAsEmpty() {
+        assertEquals("", ContentHash.normalizeText(null));
+        assertEquals(ContentHash.textFingerprint(""), ContentHash.textFingerprint(null));
+        assertEquals(ContentHash.textFingerprint(""), ContentHash.textFingerprint(" \n\t "));
+    }
+}
@@ -0,0 +1,99 @@
+package com.RiskAnalyzerProject.ContractRiskAnalyzer.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContractTextSplitterTests {
+
+    private static final String DEFINITIONS = "1. Definitions\nTerms mean what they say.";
+    private static final String PAYMENT = "2. Payment\nPay within 30 days.";
+    private static final String TERMINATION = "3. Termination\nEither party may terminate.";
+
+    @Test
+    void splitsOnNumberedHeadings() {
+        List<String> sections = ContractTextSplitter.splitSections(
+                "This Agreement is made between the parties.\n" + DEFINITIONS + "\n" + PAYMENT + "\n" + TERMINATION);
+
+        assertEquals(List.of("This Agreement is made between the parties.", DEFINITIONS, PAYMENT, TERMINATION), sections);
+    }
+
+    @Test
+    void headingOnItsOwnLineStaysWithItsBody() {
+        List<String> sections = ContractTextSplitter.splitSections(
+                "ARTICLE 8\nTERM AND RENEWAL\nThe term is one year.\nARTICLE 9\nNotices go by email.");
+
+        assertEquals(List.of("ARTICLE 8\nTERM AND RENEWAL\nThe term is one year.", "ARTICLE 9\nNotices go by email."), sections);
+    }
+
+    @Test
+    void blankTextHasNoSections() {
+        assertTrue(ContractTextSplitter.splitSections(null).isEmpty());
+        assertTrue(ContractTextSplitter.splitSections("  \n ").isEmpty());
+        assertTrue(ContractTextSplitter.chunk("", 100).isEmpty());
+    }
+
+    @Test
+    void headingLabels() {
+        assertEquals("2", ContractTextSplitter.headingLabel(PAYMENT));
+        assertEquals("7.3.1", ContractTextSplitter.headingLabel("7.3.1 Termination for cause"));
+        assertEquals("Section 4.2", ContractTextSplitter.headingLabel("Section 4.2 Fees"));
+        assertEquals("Article IV", ContractTextSplitter.headingLabel("Article IV Confidentiality"));
+        assertNull(ContractTextSplitter.headingLabel("The parties agree as follows."));
+    }
+
+    @Test
+    void chunksPackWholeSections() {
+        String text = DEFINITIONS + "\n" + PAYMENT + "\n" + TERMINATION;
+        int maxChars = DEFINITIONS.length() + PAYMENT.length() + 2;
+
+        List<String> chunks = ContractTextSplitter.chunk(text, maxChars);
+
+        assertEquals(List.of(DEFINITIONS + "\n\n" + PAYMENT, TERMINATION), chunks);
+    }
+
+    @Test
+    void oversizedSectionIsCutAtSentenceEnds() {
+        String sentence = "The supplier shall deliver the goods.";
+        String section = String.join(" ", sentence, sentence, sentence, sentence, sentence);
+
+        List<String> pieces = ContractTextSplitter.splitOversized(section, 50);
+
+        assertEquals(5, pieces.size());
+        pieces.forEach(piece -> assertEquals(sentence, piece));
+    }
+
+    @Test
+    void oversizedSectionPrefersParagraphBreaks() {
+        String first = "a".repeat(30) + ". " + "b".repeat(20);
+        String second = "c".repeat(40);
+
+        List<String> pieces = ContractTextSplitter.splitOversized(first + "\n\n" + second, 60);
+
+        assertEquals(List.of(first, second), pieces);
+    }
+
+    @Test
+    void noChunkIsLongerThanTheLimit() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 1; i <= 40; i++) {
+            text.append(i).append(". Clause ").append(i).append('\n')
+                    .append("Obligations of the parties under this clause. ".repeat(i % 7 + 1)).append('\n');
+        }
+
+        List<String> chunks = ContractTextSplitter.chunk(text.toString(), 400);
+
+        assertTrue(chunks.size() > 1);
+        chunks.forEach(chunk -> assertTrue(chunk.length() <= 400, () -> "chunk of " + chunk.length() + " chars"));
+        // Every clause heading lands in exactly one chunk, at the start of a line
+        for (int i = 1; i <= 40; i++) {
+            String heading = i + ". Clause " + i + "\n";
+            long hits = chunks.stream().filter(c -> c.startsWith(heading) || c.contains("\n" + heading)).count();
+            assertEquals(1, hits, heading);
+        }
+    }
+}